@@ -0,0 +1,205 @@
+import java.util.SplittableRandom;
+import java.util.function.DoubleSupplier;
+import java.util.random.RandomGenerator;
+
+/**
+ * The operations measured by the JMH benchmarks in the benchmarks package, each built with its setup already done.
+ * JMH only generates benchmarks in a named package, and classes in a named package can not reach the default package,
+ * so the benchmarks look these factories up by name and measure the returned operation. Living in the default package
+ * the fixtures can use the package-private trainer hooks. The value each operation returns is consumed by JMH so the
+ * JIT can not discard the work.
+ * Datasets are named by their DatasetType constant and hidden layers as sizes joined by dashes, e.g. "100-50".
+ * The main method prints the maximum error of every activation function against HyperbolicTangent.
+ */
+public final class BenchmarkFixtures {
+
+    // Block of inputs each activation operation is applied to
+    private static final int BLOCK = 1024;
+
+    private static final RandomSource random = new RandomSource(447);
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Loading and parsing a dataset
+     */
+    public static DoubleSupplier buildDataSet(String dataset) {
+        DatasetType type = DatasetType.valueOf(dataset);
+        return () -> DatasetFactory.buildDataSet(type).size();
+    }
+
+    /**
+     * Forward pass of a single sample through a network, cycling through the dataset
+     */
+    public static DoubleSupplier execute(String dataset, String hidden, String network) {
+        Dataset samples = DatasetFactory.buildDataSet(DatasetType.valueOf(dataset));
+        double[][] inputs = new double[samples.size()][samples.getFeatures()];
+        for (int i = 0; i < inputs.length; i++) {
+            samples.copyInputs(i, inputs[i], 0);
+        }
+
+        INeuralNetwork target = buildNetwork(NetworkType.valueOf(network), dimensions(samples, hidden), 0);
+        int[] cursor = new int[1];
+        return () -> {
+            cursor[0] = cursor[0] + 1 == inputs.length ? 0 : cursor[0] + 1;
+            return target.execute(inputs[cursor[0]])[0];
+        };
+    }
+
+    /**
+     * Decoding an individual into a network
+     */
+    public static DoubleSupplier buildNetwork(String dataset, String hidden) {
+        Dataset samples = DatasetFactory.buildDataSet(DatasetType.valueOf(dataset));
+        WeightMatrix individual = new WeightMatrix(buildNetwork(NetworkType.MultiLayerPerceptron,
+                dimensions(samples, hidden), 1));
+        return () -> individual.buildNetwork().getSize();
+    }
+
+    /**
+     * One epoch of backpropagation over the whole dataset with the factory's tuning parameters
+     */
+    public static DoubleSupplier epoch(String dataset, String hidden) {
+        Dataset samples = DatasetFactory.buildDataSet(DatasetType.valueOf(dataset));
+        BPNetworkTrainer trainer = (BPNetworkTrainer) NetworkFactory.buildNetworkTrainer(NetworkTrainerType.BPNetworkTrainer);
+        trainer.initialize(buildNetwork(NetworkType.MultiLayerPerceptron, dimensions(samples, hidden), 2));
+        return () -> trainer.trainEpoch(samples, null);
+    }
+
+    /**
+     * Scoring a whole population with the factory's tuning parameters
+     */
+    public static DoubleSupplier evaluatePopulation(String dataset, String hidden) {
+        Dataset samples = DatasetFactory.buildDataSet(DatasetType.valueOf(dataset));
+        INeuralNetwork network = buildNetwork(NetworkType.MultiLayerPerceptron, dimensions(samples, hidden), 3);
+        NetworkTrainerBase trainer = (NetworkTrainerBase) NetworkFactory.buildNetworkTrainer(NetworkTrainerType.GANetworkTrainer);
+        trainer.evaluator = new FitnessEvaluator(network);
+        Population population = trainer.initializePopulation(network, random.split(4));
+        return () -> {
+            for (WeightMatrix individual : population) {
+                individual.invalidateFitness();
+            }
+            trainer.evaluatePopulation(population, samples);
+            return population.get(0).getFitness();
+        };
+    }
+
+    /**
+     * One generation of an evolutionary trainer with the factory's tuning parameters. The initial population is scored
+     * here so only the steady state generation is measured.
+     */
+    public static DoubleSupplier generation(String trainerType, String dataset, String hidden) {
+        NetworkTrainerType type = NetworkTrainerType.valueOf(trainerType);
+        Dataset samples = DatasetFactory.buildDataSet(DatasetType.valueOf(dataset));
+        INeuralNetwork network = buildNetwork(NetworkType.MultiLayerPerceptron, dimensions(samples, hidden), 3);
+        NetworkTrainerBase trainer = (NetworkTrainerBase) NetworkFactory.buildNetworkTrainer(type);
+        trainer.evaluator = new FitnessEvaluator(network);
+        RandomSource trainerRandom = random.split(5 + type.ordinal());
+        Population[] population = {trainer.initializePopulation(network, trainerRandom.split(-1))};
+        trainer.evaluatePopulation(population[0], samples);
+        int[] generation = new int[1];
+        return () -> {
+            population[0] = trainer.nextGeneration(population[0], samples, generation[0], trainerRandom.split(generation[0]));
+            generation[0]++;
+            return population[0].size();
+        };
+    }
+
+    /**
+     * An activation function applied to a block of inputs spread over the range a hidden neuron sees
+     */
+    public static DoubleSupplier compute(String activation) {
+        IActivationFunction function = NetworkFactory.buildActivationFunction(ActivationFunctionType.valueOf(activation));
+        double[] inputs = activationInputs();
+        return () -> {
+            double sum = 0.0;
+            for (double input : inputs) {
+                sum += function.compute(input);
+            }
+            return sum;
+        };
+    }
+
+    /**
+     * The derivative of an activation function taken from its input, over the same block as compute
+     */
+    public static DoubleSupplier computeDerivative(String activation) {
+        IActivationFunction function = NetworkFactory.buildActivationFunction(ActivationFunctionType.valueOf(activation));
+        double[] inputs = activationInputs();
+        return () -> {
+            double sum = 0.0;
+            for (double input : inputs) {
+                sum += function.computeDerivative(input);
+            }
+            return sum;
+        };
+    }
+
+    /**
+     * The derivative of an activation function taken from its output, as backpropagation does for hidden neurons
+     */
+    public static DoubleSupplier computeDerivativeFromOutput(String activation) {
+        IActivationFunction function = NetworkFactory.buildActivationFunction(ActivationFunctionType.valueOf(activation));
+        double[] outputs = activationInputs();
+        for (int i = 0; i < outputs.length; i++) {
+            outputs[i] = function.compute(outputs[i]);
+        }
+        return () -> {
+            double sum = 0.0;
+            for (double output : outputs) {
+                sum += function.computeDerivativeFromOutput(output);
+            }
+            return sum;
+        };
+    }
+
+    public static void main(String[] args) {
+        IActivationFunction reference = new HyperbolicTangent();
+        for (ActivationFunctionType type : ActivationFunctionType.values()) {
+            IActivationFunction function = NetworkFactory.buildActivationFunction(type);
+            double maxError = 0.0;
+            double maxDerivativeError = 0.0;
+            for (double x = -20; x <= 20; x += 1e-4) {
+                maxError = Math.max(maxError, Math.abs(function.compute(x) - reference.compute(x)));
+                maxDerivativeError = Math.max(maxDerivativeError, Math.abs(function.computeDerivative(x) - reference.computeDerivative(x)));
+            }
+            System.out.println(type + " max error " + maxError + ", derivative max error " + maxDerivativeError);
+        }
+    }
+
+    /**
+     * Weighted sums of a hidden neuron mostly fall within a few units of zero
+     */
+    private static double[] activationInputs() {
+        SplittableRandom generator = new SplittableRandom(447);
+        double[] inputs = new double[BLOCK];
+        for (int i = 0; i < BLOCK; i++) {
+            inputs[i] = generator.nextGaussian() * 3;
+        }
+        return inputs;
+    }
+
+    private static int[] dimensions(Dataset samples, String hidden) {
+        String[] sizes = hidden.split("-");
+        int[] dimensions = new int[sizes.length + 2];
+        dimensions[0] = samples.getFeatures();
+        for (int i = 0; i < sizes.length; i++) {
+            dimensions[i + 1] = Integer.parseInt(sizes[i]);
+        }
+        dimensions[dimensions.length - 1] = samples.getClasses();
+        return dimensions;
+    }
+
+    private static INeuralNetwork buildNetwork(NetworkType type, int[] dimensions, long key) {
+        RandomGenerator generator = random.generator(key);
+        switch (type) {
+            case MultiLayerPerceptron:
+                return new MultiLayerPerceptron(new HyperbolicTangent(), dimensions, generator);
+            case FlatMultiLayerPerceptron:
+                return new FlatMultiLayerPerceptron(new HyperbolicTangent(), dimensions, generator);
+            default:
+                throw new IllegalArgumentException("Invalid network type!");
+        }
+    }
+}
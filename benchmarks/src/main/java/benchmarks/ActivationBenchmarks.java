@@ -0,0 +1,58 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Throughput of each activation function and both of its derivatives, every operation covering a block of 1024
+ * inputs. The maximum error of each function is printed by running BenchmarkFixtures.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ActivationBenchmarks {
+
+    @Param({"HyperbolicTangent", "LookupTableTangent", "RationalTangent"})
+    String activation;
+
+    private DoubleSupplier compute;
+    private DoubleSupplier computeDerivative;
+    private DoubleSupplier computeDerivativeFromOutput;
+
+    @Setup
+    public void setup() {
+        compute = Fixtures.load("compute", activation);
+        computeDerivative = Fixtures.load("computeDerivative", activation);
+        computeDerivativeFromOutput = Fixtures.load("computeDerivativeFromOutput", activation);
+    }
+
+    @Benchmark
+    public double compute() {
+        return compute.getAsDouble();
+    }
+
+    @Benchmark
+    public double computeDerivative() {
+        return computeDerivative.getAsDouble();
+    }
+
+    @Benchmark
+    public double computeDerivativeFromOutput() {
+        return computeDerivativeFromOutput.getAsDouble();
+    }
+}
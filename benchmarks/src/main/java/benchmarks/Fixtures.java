@@ -0,0 +1,33 @@
+package benchmarks;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Looks up the operations of BenchmarkFixtures, which lives in the default package and can only be reached by name
+ */
+final class Fixtures {
+
+    private static final String FIXTURES = "BenchmarkFixtures";
+
+    private Fixtures() {
+    }
+
+    /**
+     * Build the named operation, passing every argument as a string
+     */
+    static DoubleSupplier load(String operation, String... arguments) {
+        Class<?>[] types = new Class<?>[arguments.length];
+        Arrays.fill(types, String.class);
+        try {
+            Method factory = Class.forName(FIXTURES).getMethod(operation, types);
+            return (DoubleSupplier) factory.invoke(null, (Object[]) arguments);
+        } catch (InvocationTargetException ex) {
+            throw new IllegalStateException("Unable to set up " + operation, ex.getCause());
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException("No fixture named " + operation, ex);
+        }
+    }
+}
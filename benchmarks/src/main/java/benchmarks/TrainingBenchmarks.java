@@ -0,0 +1,158 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Throughput of the forward pass, one epoch of backpropagation, population evaluation, decoding an individual, one
+ * generation of each evolutionary trainer and dataset loading, over every shipped dataset and several hidden layer
+ * sizes. Select benchmarks and parameters on the command line, e.g. "TrainingBenchmarks.generation -p dataset=Energy".
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector", "-Xms2g", "-Xmx2g"})
+public class TrainingBenchmarks {
+
+    @State(Scope.Benchmark)
+    public static class Loading {
+        @Param({"Ecoli", "Energy", "TicTacToe", "Wine", "Yeast"})
+        String dataset;
+
+        DoubleSupplier operation;
+
+        @Setup
+        public void setup() {
+            operation = Fixtures.load("buildDataSet", dataset);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class ForwardPass {
+        @Param({"Ecoli", "Energy", "TicTacToe", "Wine", "Yeast"})
+        String dataset;
+
+        @Param({"15", "50", "100-50"})
+        String hidden;
+
+        @Param({"MultiLayerPerceptron", "FlatMultiLayerPerceptron"})
+        String network;
+
+        DoubleSupplier operation;
+
+        @Setup
+        public void setup() {
+            operation = Fixtures.load("execute", dataset, hidden, network);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Decoding {
+        @Param({"Ecoli", "Energy", "TicTacToe", "Wine", "Yeast"})
+        String dataset;
+
+        @Param({"15", "50", "100-50"})
+        String hidden;
+
+        DoubleSupplier operation;
+
+        @Setup
+        public void setup() {
+            operation = Fixtures.load("buildNetwork", dataset, hidden);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Backpropagation {
+        @Param({"Ecoli", "Energy", "TicTacToe", "Wine", "Yeast"})
+        String dataset;
+
+        @Param({"15", "50", "100-50"})
+        String hidden;
+
+        DoubleSupplier operation;
+
+        @Setup
+        public void setup() {
+            operation = Fixtures.load("epoch", dataset, hidden);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Evaluation {
+        @Param({"Ecoli", "Energy", "TicTacToe", "Wine", "Yeast"})
+        String dataset;
+
+        @Param({"15", "50", "100-50"})
+        String hidden;
+
+        DoubleSupplier operation;
+
+        @Setup
+        public void setup() {
+            operation = Fixtures.load("evaluatePopulation", dataset, hidden);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Evolution {
+        @Param({"GANetworkTrainer", "ESNetworkTrainer", "DENetworkTrainer"})
+        String trainer;
+
+        @Param({"Ecoli", "Energy", "TicTacToe", "Wine", "Yeast"})
+        String dataset;
+
+        @Param({"15", "50", "100-50"})
+        String hidden;
+
+        DoubleSupplier operation;
+
+        @Setup
+        public void setup() {
+            operation = Fixtures.load("generation", trainer, dataset, hidden);
+        }
+    }
+
+    @Benchmark
+    public double buildDataSet(Loading state) {
+        return state.operation.getAsDouble();
+    }
+
+    @Benchmark
+    public double execute(ForwardPass state) {
+        return state.operation.getAsDouble();
+    }
+
+    @Benchmark
+    public double buildNetwork(Decoding state) {
+        return state.operation.getAsDouble();
+    }
+
+    @Benchmark
+    public double epoch(Backpropagation state) {
+        return state.operation.getAsDouble();
+    }
+
+    @Benchmark
+    public double evaluatePopulation(Evaluation state) {
+        return state.operation.getAsDouble();
+    }
+
+    @Benchmark
+    public double generation(Evolution state) {
+        return state.operation.getAsDouble();
+    }
+}
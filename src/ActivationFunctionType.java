@@ -0,0 +1,5 @@
+public enum ActivationFunctionType {
+    HyperbolicTangent,      // Math.tanh, the reference implementation
+    LookupTableTangent,     // Interpolated table, error below 1e-6
+    RationalTangent         // Minimax rational approximation, error below 3e-7
+}
@@ -0,0 +1,72 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Stop as soon as any of a set of policies would stop. Every policy is consulted each generation, so those that track
+ * the run's history see all of it. The state of the set is the state of each policy in turn, each preceded by its
+ * length.
+ */
+public class AnyStoppingPolicy implements IStoppingPolicy {
+
+    private final List<IStoppingPolicy> policies;
+
+    public AnyStoppingPolicy(IStoppingPolicy... policies) {
+        this(Arrays.asList(policies));
+    }
+
+    public AnyStoppingPolicy(List<IStoppingPolicy> policies) {
+        this.policies = new ArrayList<>(policies);
+    }
+
+    @Override
+    public void reset() {
+        for (IStoppingPolicy policy : policies) {
+            policy.reset();
+        }
+    }
+
+    @Override
+    public boolean shouldStop(TrainingProgress progress) {
+        boolean stop = false;
+        for (IStoppingPolicy policy : policies) {
+            stop |= policy.shouldStop(progress);
+        }
+        return stop;
+    }
+
+    @Override
+    public double[] getState() {
+        List<double[]> states = new ArrayList<>(policies.size());
+        int length = 0;
+        for (IStoppingPolicy policy : policies) {
+            double[] state = policy.getState();
+            states.add(state);
+            length += 1 + state.length;
+        }
+        double[] combined = new double[length];
+        int offset = 0;
+        for (double[] state : states) {
+            combined[offset++] = state.length;
+            System.arraycopy(state, 0, combined, offset, state.length);
+            offset += state.length;
+        }
+        return combined;
+    }
+
+    @Override
+    public void setState(double[] state) {
+        int offset = 0;
+        for (IStoppingPolicy policy : policies) {
+            if (offset >= state.length) {
+                throw new IllegalArgumentException("Stopping policy state is missing policies!");
+            }
+            int length = (int) state[offset++];
+            policy.setState(Arrays.copyOfRange(state, offset, offset + length));
+            offset += length;
+        }
+        if (offset != state.length) {
+            throw new IllegalArgumentException("Stopping policy state holds more policies than the set!");
+        }
+    }
+}
@@ -1,10 +1,17 @@
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.IntStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * An implementation of standard backpropagation
- * Supports stochastic weight updates and momentum
+ * Supports mini-batch weight updates and momentum, gradients are accumulated in primitive buffers across each batch
+ * With more than one worker the trainer runs data parallel: every worker owns a shard of each chunk of the training set
+ * and its own buffers, each step every worker accumulates the gradient of its next batch, and the worker gradients are
+ * reduced in worker order and applied as a single update
  *
  * @author Zach Connelly
  */
@@ -13,165 +20,186 @@ public class BPNetworkTrainer extends NetworkTrainerBase {
     private double learningRate;
     private double momentum;
     private int batchSize;
+    private int workers;
 
-    private int bestIteration;
-    private double bestError = Double.MAX_VALUE;
-    private WeightMatrix bestNetwork;
+    private double[] parameters;
+    private double[] bestParameters;
+    private double[] velocity;
+    private GradientWorkspace[] workspaces;
+
+    private double[] validationOutputs;
 
     BPNetworkTrainer(double learningRate, double momentum, int batchSize) {
+        this(learningRate, momentum, batchSize, 1);
+    }
+
+    BPNetworkTrainer(double learningRate, double momentum, int batchSize, int workers) {
         super(0);
         this.learningRate = learningRate;
         this.momentum = momentum;
         this.batchSize = batchSize;
+        this.workers = workers;
     }
 
     @Override
-    public INeuralNetwork train(INeuralNetwork network, Dataset samples) {
+    public INeuralNetwork train(INeuralNetwork network, IDatasetSource trainingSet, Dataset validationSet) {
         startTimer();
-        // Split training set into training and validation sets
-        samples.shuffle();
-        Dataset validationSet = new Dataset(samples.subList(0, samples.size() / 10));
-        Dataset trainingSet = new Dataset(samples.subList(samples.size() / 10, samples.size()));
-
-        int iteration = 0;
-        while (shouldContinue(validate(network, validationSet, iteration), iteration, network)) {
-            for (Sample sample : trainingSet) {
-                // Forward propagate each sample through the network
-                network.execute(sample.inputs);
-
-                // Backpropagate the error using the true outputs
-                this.backPropagate(network, sample.outputs);
-
-                // Only apply weight updates once per batch
-                if (iteration % batchSize == 0) {
-                    this.updateWeights(network, sample.inputs);
-                    this.resetWeightDeltas(network);
-                }
+        initialize(network);
+        ExecutorService executor = workers > 1 ? Executors.newFixedThreadPool(workers) : null;
+
+        try {
+            int iteration = 0;
+            while (shouldContinue(validate(network, validationSet, iteration), iteration, network)) {
+                long start = System.nanoTime();
+                evaluations.add(trainEpoch(trainingSet, executor));
+                evaluationNanos.add(System.nanoTime() - start);
+                FlatMultiLayerPerceptron.unpackParameters(network, parameters);
+                iteration++;
+            }
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
             }
-            iteration++;
         }
 
+        FlatMultiLayerPerceptron.unpackParameters(network, bestParameters);
         printConvergence(NetworkTrainerType.BPNetworkTrainer, network);
-        return bestNetwork.buildNetwork();
+        return network;
     }
 
     /**
-     * Determine if learning should be cutoff by evaluating performance against the validation set
+     * Take a flat copy of the network's weights and biases to train, written back to the network once per epoch, and
+     * allocate the gradient workspaces
      */
-    protected boolean shouldContinue(double validationError, int iteration, INeuralNetwork network) {
-        if (validationError < bestError) {
-            bestIteration = iteration;
-            bestError = validationError;
-            bestNetwork = network.constructWeightMatrix();
-        }
-        runningAvg = ((runningAvg * 9) + validationError) / 10;
-        // Increment counter if the error has seen less than 1/10000 improvement
-        if ((runningAvg - validationError) / validationError < 0.000001) {
-            cutoffCounter++;
-        } else {
-            cutoffCounter = 0;
-        }
-        if (iteration < 3000) {
-            return true;
-        } else {
-            if (iteration > 20000 || cutoffCounter > 500) {
-                System.out.println(cutoffCounter);
-                return false;
-            }
-            return true;
+    void initialize(INeuralNetwork network) {
+        int[] dimensions = FlatMultiLayerPerceptron.getDimensions(network);
+        int[] layerOffsets = FlatMultiLayerPerceptron.computeLayerOffsets(dimensions);
+        parameters = FlatMultiLayerPerceptron.packParameters(network, new double[layerOffsets[layerOffsets.length - 1]]);
+        bestParameters = parameters.clone();
+        velocity = new double[parameters.length];
+
+        workspaces = new GradientWorkspace[Math.max(1, workers)];
+        for (int i = 0; i < workspaces.length; i++) {
+            workspaces[i] = new GradientWorkspace(dimensions, layerOffsets, network.getActivationFunction());
         }
     }
 
     /**
-     * Compute the weight deltas for each weight in the network starting with the output layer
-     * Use the gradient of the output errors to compute the deltas for the first hidden layer
-     * Use the deltas established in the first hidden layer to compute those for subsequent layers
+     * Make one pass over the training set, reading it a chunk at a time so it never has to fit in memory. A null
+     * executor trains every batch on the calling thread. Returns the number of samples trained on.
      */
-    private void backPropagate(INeuralNetwork network, double[] expectedOutputs) {
-        for (int i = network.getSize() - 1; i >= 0; i--) {
-            Layer currentLayer = network.getLayer(i);
-            List<Double> errors = new ArrayList<>();
-
-            if (i != network.getSize() - 1) {
-                // Compute errors for hidden layers
-                for (int j = 0; j < currentLayer.size; j++) {
-                    double error = 0.0;
-                    Layer prevLayer = network.getLayer(i + 1);
-                    for (int k = 0; k < prevLayer.size; k++) {
-                        error += prevLayer.getNeuron(k).getWeight(j) * prevLayer.getNeuron(k).getDelta();
+    long trainEpoch(IDatasetSource trainingSet, ExecutorService executor) {
+        long samples = 0;
+        try (IChunkIterator chunks = trainingSet.chunks()) {
+            while (chunks.hasNext()) {
+                Dataset chunk = chunks.next();
+                samples += chunk.size();
+                if (executor != null) {
+                    this.trainShards(executor, chunk);
+                } else {
+                    for (int start = 0; start < chunk.size(); start += batchSize) {
+                        this.trainBatch(chunk, start, Math.min(chunk.size(), start + batchSize));
                     }
-                    errors.add(error);
                 }
-            } else {
-                // Compute errors for output layer
-                for (int j = 0; j < currentLayer.size; j++) {
-                    Neuron neuron = currentLayer.getNeuron(j);
-                    double error = expectedOutputs[j] - neuron.getOutput();
-                    errors.add(error);
-                }
-            }
-
-            // Set deltas by multiplying the partial error by the derivative of the respective output
-            for (int j = 0; j < currentLayer.size; j++) {
-                Neuron neuron = currentLayer.getNeuron(j);
-                double delta = errors.get(j) * network.computeActivationDerivative(neuron.getOutput());
-                neuron.setDelta(delta);
             }
         }
+        return samples;
     }
 
     /**
-     * Use the weight deltas calculated by back prop to update the weights of each neuron
+     * The best weights of the run are a flat copy of the parameters, the network only holds them once training ends
      */
-    private void updateWeights(INeuralNetwork network, double[] networkInputs) {
-        double[] inputs;
-        for (int i = 0; i < network.getSize(); i++) {
-            // Set inputs to the layer in question as the outputs of the previous layer
-            if (i == 0) {
-                inputs = networkInputs;
-            } else {
-                Layer prevLayer = network.getLayer(i - 1);
-                inputs = new double[prevLayer.size];
-                for (int j = 0; j < prevLayer.size; j++) {
-                    inputs[j] = prevLayer.getNeuron(j).getOutput();
-                }
+    @Override
+    protected void saveBest(INeuralNetwork network) {
+        System.arraycopy(parameters, 0, bestParameters, 0, parameters.length);
+    }
+
+    /**
+     * Accumulate the gradients of samples [from, to) on the calling thread and apply a single averaged update. The
+     * batch is never split, so a single worker trains the same weights on every machine whatever its core count.
+     */
+    private void trainBatch(Dataset samples, int from, int to) {
+        accumulateShard(workspaces[0], samples, from, to);
+        this.applyGradients(1, to - from);
+    }
+
+    /**
+     * Data parallel training over one chunk. The chunk is split into one contiguous shard per worker and every step each
+     * worker accumulates the gradients of the next batchSize samples of its shard in its own workspace. The workers'
+     * gradients are then reduced in worker order and applied once, so every run with the same inputs produces the same
+     * weights regardless of thread timing.
+     */
+    private void trainShards(ExecutorService executor, Dataset samples) {
+        int shardSize = (samples.size() + workers - 1) / workers;
+
+        List<Callable<Integer>> tasks = new ArrayList<>(workers);
+        for (int step = 0; step * batchSize < shardSize; step++) {
+            tasks.clear();
+            for (int worker = 0; worker < workers; worker++) {
+                GradientWorkspace workspace = workspaces[worker];
+                int shardEnd = Math.min(samples.size(), (worker + 1) * shardSize);
+                int from = Math.min(shardEnd, worker * shardSize + step * batchSize);
+                int to = Math.min(shardEnd, from + batchSize);
+                tasks.add(() -> {
+                    accumulateShard(workspace, samples, from, to);
+                    return to - from;
+                });
             }
-            // Apply weight updates to each neuron in the current layer and update the bias node
-            Layer currentLayer = network.getLayer(i);
-            for (int j = 0; j < currentLayer.size; j++) {
-                Neuron currentNeuron = currentLayer.getNeuron(j);
-                for (int k = 0; k < inputs.length; k++) {
-                    // Apply momentum
-                    double updatedWeight = ((1 - this.momentum) * this.learningRate * currentNeuron.getDelta() * inputs[k]) +
-                            (momentum * currentNeuron.getPreviousWeight(k));
-                    currentNeuron.updateWeight(k, updatedWeight);
+
+            int count = 0;
+            try {
+                for (Future<Integer> result : executor.invokeAll(tasks)) {
+                    count += result.get();
                 }
-                currentNeuron.updateBias(this.learningRate * currentNeuron.getDelta());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Data parallel training was interrupted", ex);
+            } catch (ExecutionException ex) {
+                throw new IllegalStateException("Data parallel training failed", ex.getCause());
+            }
+
+            if (count > 0) {
+                this.applyGradients(workers, count);
             }
         }
     }
 
     /**
-     * Reset all of the weight deltas in the network to zero
+     * Reduce the gradients of the first n workspaces, in order, into the first and apply their mean with momentum
      */
-    private void resetWeightDeltas(INeuralNetwork network) {
-        IntStream.range(0, network.getSize())
-                .forEach(i -> network.getLayer(i)
-                        .getNeurons()
-                        .forEach(neuron -> neuron.setDelta(0.0)));
+    private void applyGradients(int n, int count) {
+        double[] gradients = workspaces[0].gradients;
+        for (int shard = 1; shard < n; shard++) {
+            workspaces[0].add(workspaces[shard]);
+        }
+
+        double scale = (1 - this.momentum) * this.learningRate / count;
+        for (int i = 0; i < parameters.length; i++) {
+            velocity[i] = this.momentum * velocity[i] + scale * gradients[i];
+            parameters[i] += velocity[i];
+        }
+    }
+
+    private void accumulateShard(GradientWorkspace workspace, Dataset samples, int from, int to) {
+        workspace.clear();
+        for (int i = from; i < to; i++) {
+            workspace.accumulate(parameters, samples, i);
+        }
     }
 
     /**
-     * Compute the average error over the validation set and print to console
+     * Compute the average error over the validation set and record the epoch's telemetry
      */
     private double validate(INeuralNetwork network, Dataset validationSet, int epoch) {
-        double error = validationSet
-                .parallelStream()
-                .mapToDouble(sample -> this.meanSquaredError(network.execute(sample.inputs), sample.outputs))
-                .sum() / validationSet.size();
-        if (epoch % 10 == 0) {
-            System.out.println("Epoch: " + epoch + "\t\tValidation Set Error: " + error);
+        validationOutputs = network.executeBatch(validationSet, validationOutputs);
+        int outputSize = validationSet.getClasses();
+
+        double error = 0.0;
+        for (int i = 0; i < validationSet.size(); i++) {
+            error += FitnessEvaluator.meanSquaredError(validationOutputs, i * outputSize, validationSet, i);
         }
+        error /= validationSet.size();
+        recordGeneration(epoch, error, error);
         return error;
     }
 }
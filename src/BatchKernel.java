@@ -0,0 +1,126 @@
+/**
+ * Batched forward propagation over flat parameter arrays laid out as in FlatMultiLayerPerceptron.
+ * Each layer is computed for a block of samples at once as outputs = inputs * W^T + b, tiled over both samples and
+ * neurons so a block of parameter rows is reused across every sample in the block, and four samples share each weight
+ * load. Datasets are processed in fixed size row blocks so the scratch buffers stay small and cache resident.
+ * Every dot product still starts at the bias and accumulates in input order, results are identical to Neuron.execute.
+ */
+final class BatchKernel {
+
+    // Number of samples pushed through the network together
+    static final int BLOCK_ROWS = 128;
+    // Number of neurons whose parameter rows are kept hot while sweeping a block of samples
+    private static final int BLOCK_NEURONS = 32;
+
+    private BatchKernel() {
+    }
+
+    /**
+     * Allocate the per-thread scratch used by forward, one block of inputs followed by one block per hidden layer
+     */
+    static double[][] createScratch(int[] dimensions) {
+        double[][] scratch = new double[dimensions.length - 1][];
+        for (int i = 0; i < scratch.length; i++) {
+            scratch[i] = new double[BLOCK_ROWS * dimensions[i]];
+        }
+        return scratch;
+    }
+
+    /**
+     * Make sure the supplied output buffer can hold the network outputs of every sample, allocating if it cannot
+     */
+    static double[] ensureCapacity(double[] outputs, int rows, int[] dimensions) {
+        int length = rows * dimensions[dimensions.length - 1];
+        return outputs != null && outputs.length >= length ? outputs : new double[length];
+    }
+
+    /**
+     * Propagate samples [from, to) through the network, writing one row of outputs per sample into outputs starting at
+     * row zero
+     */
+    static void forward(int[] dimensions, int[] layerOffsets, double[] parameters, IActivationFunction activationFunction,
+                        Dataset samples, int from, int to, double[][] scratch, double[] outputs) {
+        int features = dimensions[0];
+        int lastLayer = dimensions.length - 2;
+        int outputSize = dimensions[lastLayer + 1];
+
+        for (int start = from; start < to; start += BLOCK_ROWS) {
+            int rows = Math.min(BLOCK_ROWS, to - start);
+
+            // Pack the inputs of the block into a contiguous row-major matrix
+            double[] inputs = scratch[0];
+            for (int r = 0; r < rows; r++) {
+                samples.copyInputs(start + r, inputs, r * features);
+            }
+
+            for (int l = 0; l <= lastLayer; l++) {
+                if (l == lastLayer) {
+                    layer(scratch[l], rows, dimensions[l], parameters, layerOffsets[l], dimensions[l + 1],
+                            outputs, (start - from) * outputSize, null);
+                } else {
+                    layer(scratch[l], rows, dimensions[l], parameters, layerOffsets[l], dimensions[l + 1],
+                            scratch[l + 1], 0, activationFunction);
+                }
+            }
+        }
+    }
+
+    /**
+     * Compute a single layer for a block of rows. A null activation function leaves the outputs linear.
+     */
+    static void layer(double[] inputs, int rows, int connections, double[] parameters, int offset, int size,
+                      double[] outputs, int outputOffset, IActivationFunction activationFunction) {
+        int stride = connections + 1;
+
+        for (int firstNeuron = 0; firstNeuron < size; firstNeuron += BLOCK_NEURONS) {
+            int lastNeuron = Math.min(size, firstNeuron + BLOCK_NEURONS);
+
+            int r = 0;
+            // Four samples at a time so every weight loaded is used four times
+            for (; r + 4 <= rows; r += 4) {
+                int x0 = r * connections;
+                int x1 = x0 + connections;
+                int x2 = x1 + connections;
+                int x3 = x2 + connections;
+                int y = outputOffset + r * size;
+
+                for (int j = firstNeuron; j < lastNeuron; j++) {
+                    int w = offset + j * stride;
+                    double s0 = parameters[w + connections];
+                    double s1 = s0;
+                    double s2 = s0;
+                    double s3 = s0;
+                    for (int k = 0; k < connections; k++) {
+                        double weight = parameters[w + k];
+                        s0 += inputs[x0 + k] * weight;
+                        s1 += inputs[x1 + k] * weight;
+                        s2 += inputs[x2 + k] * weight;
+                        s3 += inputs[x3 + k] * weight;
+                    }
+                    outputs[y + j] = activate(activationFunction, s0);
+                    outputs[y + size + j] = activate(activationFunction, s1);
+                    outputs[y + 2 * size + j] = activate(activationFunction, s2);
+                    outputs[y + 3 * size + j] = activate(activationFunction, s3);
+                }
+            }
+
+            // Remaining samples one at a time
+            for (; r < rows; r++) {
+                int x = r * connections;
+                int y = outputOffset + r * size;
+                for (int j = firstNeuron; j < lastNeuron; j++) {
+                    int w = offset + j * stride;
+                    double sum = parameters[w + connections];
+                    for (int k = 0; k < connections; k++) {
+                        sum += inputs[x + k] * parameters[w + k];
+                    }
+                    outputs[y + j] = activate(activationFunction, sum);
+                }
+            }
+        }
+    }
+
+    private static double activate(IActivationFunction activationFunction, double value) {
+        return activationFunction == null ? value : activationFunction.compute(value);
+    }
+}
@@ -0,0 +1,233 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Snapshot of an evolutionary run at a generation boundary, from which the run can be continued exactly.
+ * Holds every island's population with the genes, sigmas and fitness of each individual, the best individual seen, the
+ * progress seen by the stopping policy with the policy's own state, and the trainer's random source. Every random draw
+ * of a run is derived from that source by generation and island, never from generator state, so the seed, algorithm
+ * and run number are the whole RNG state.
+ * The binary layout is big endian: int magic, int version, trainer name, long seed, algorithm name, int run,
+ * int generation, int bestGeneration, double bestError, long elapsedNanos, long evaluations, int policy state length
+ * and the state, the best individual, int islands, then per island int size and its individuals. An individual is int
+ * gene count, the genes, double fitness and a byte that is 0 when the fitness is not valid, 1 when it was scored on
+ * the whole training set and 2 when it was estimated on a subsample.
+ */
+public final class Checkpoint {
+
+    private static final int MAGIC = 0x4E4E434B;
+    private static final int VERSION = 2;
+
+    private final String trainer;
+    private final long seed;
+    private final String algorithm;
+    private final int run;
+    private final int generation;
+    private final int bestGeneration;
+    private final double bestError;
+    private final long elapsedNanos;
+    private final long evaluations;
+    private final double[] policyState;
+    private final WeightMatrix best;
+    private final List<Population> populations;
+
+    /**
+     * Take a snapshot, copying every individual so training can carry on while the checkpoint is written
+     */
+    Checkpoint(String trainer, RandomSource randomSource, int run, int generation, int bestGeneration,
+               double bestError, long elapsedNanos, long evaluations, double[] policyState, WeightMatrix best,
+               List<Population> populations) {
+        this.trainer = trainer;
+        this.seed = randomSource.getSeed();
+        this.algorithm = randomSource.getAlgorithm();
+        this.run = run;
+        this.generation = generation;
+        this.bestGeneration = bestGeneration;
+        this.bestError = bestError;
+        this.elapsedNanos = elapsedNanos;
+        this.evaluations = evaluations;
+        this.policyState = policyState.clone();
+        this.best = best.copy();
+        this.populations = new ArrayList<>(populations.size());
+        for (Population population : populations) {
+            Population copy = new Population();
+            for (WeightMatrix individual : population) {
+                copy.add(individual.copy());
+            }
+            this.populations.add(copy);
+        }
+    }
+
+    private Checkpoint(DataInputStream in, INeuralNetwork network) throws IOException {
+        this.trainer = in.readUTF();
+        this.seed = in.readLong();
+        this.algorithm = in.readUTF();
+        this.run = in.readInt();
+        this.generation = in.readInt();
+        this.bestGeneration = in.readInt();
+        this.bestError = in.readDouble();
+        this.elapsedNanos = in.readLong();
+        this.evaluations = in.readLong();
+        this.policyState = new double[in.readInt()];
+        for (int i = 0; i < policyState.length; i++) {
+            policyState[i] = in.readDouble();
+        }
+
+        // Individuals take their layout from the network being trained, with or without sigmas
+        WeightMatrix[] layouts = {new WeightMatrix(network, false), new WeightMatrix(network, true)};
+        this.best = readIndividual(in, layouts);
+        int islands = in.readInt();
+        this.populations = new ArrayList<>(islands);
+        for (int i = 0; i < islands; i++) {
+            int size = in.readInt();
+            Population population = new Population();
+            for (int j = 0; j < size; j++) {
+                population.add(readIndividual(in, layouts));
+            }
+            this.populations.add(population);
+        }
+    }
+
+    /**
+     * Read a checkpoint whose individuals were evolved for networks shaped like the one provided
+     */
+    public static Checkpoint read(Path path, INeuralNetwork network) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IllegalArgumentException(path + " is not a training checkpoint!");
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IllegalArgumentException(path + " is a version " + version + " checkpoint, expected version "
+                        + VERSION + "!");
+            }
+            return new Checkpoint(in, network);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Unable to read " + path, ex);
+        }
+    }
+
+    /**
+     * Write the checkpoint through a temporary file which is synced and then renamed over the target, so the target
+     * always holds a complete checkpoint even if the process dies while writing
+     */
+    public void write(Path path) {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(temporary.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(trainer);
+            out.writeLong(seed);
+            out.writeUTF(algorithm);
+            out.writeInt(run);
+            out.writeInt(generation);
+            out.writeInt(bestGeneration);
+            out.writeDouble(bestError);
+            out.writeLong(elapsedNanos);
+            out.writeLong(evaluations);
+            out.writeInt(policyState.length);
+            for (double value : policyState) {
+                out.writeDouble(value);
+            }
+            writeIndividual(out, best);
+            out.writeInt(populations.size());
+            for (Population population : populations) {
+                out.writeInt(population.size());
+                for (WeightMatrix individual : population) {
+                    writeIndividual(out, individual);
+                }
+            }
+            out.flush();
+            file.getFD().sync();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Unable to write " + path, ex);
+        }
+
+        try {
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Unable to write " + path, ex);
+        }
+    }
+
+    private static void writeIndividual(DataOutputStream out, WeightMatrix individual) throws IOException {
+        double[] genes = individual.getGenes();
+        out.writeInt(genes.length);
+        for (double gene : genes) {
+            out.writeDouble(gene);
+        }
+        out.writeDouble(individual.getFitness());
+        out.writeByte(!individual.isFitnessValid() ? 0 : individual.isFitnessEstimated() ? 2 : 1);
+    }
+
+    private static WeightMatrix readIndividual(DataInputStream in, WeightMatrix[] layouts) throws IOException {
+        double[] genes = new double[in.readInt()];
+        for (int i = 0; i < genes.length; i++) {
+            genes[i] = in.readDouble();
+        }
+        WeightMatrix individual = layouts[genes.length > layouts[0].getParameterCount() ? 1 : 0].withGenes(genes);
+        double fitness = in.readDouble();
+        int state = in.readByte();
+        if (state == 1) {
+            individual.setFitness(fitness);
+        } else if (state == 2) {
+            individual.setEstimatedFitness(fitness);
+        }
+        return individual;
+    }
+
+    public String getTrainer() {
+        return trainer;
+    }
+
+    public RandomSource getRandomSource() {
+        return new RandomSource(seed, algorithm);
+    }
+
+    public int getRun() {
+        return run;
+    }
+
+    public int getGeneration() {
+        return generation;
+    }
+
+    public int getBestGeneration() {
+        return bestGeneration;
+    }
+
+    public double getBestError() {
+        return bestError;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public long getEvaluations() {
+        return evaluations;
+    }
+
+    public double[] getPolicyState() {
+        return policyState.clone();
+    }
+
+    public WeightMatrix getBest() {
+        return best;
+    }
+
+    public List<Population> getPopulations() {
+        return populations;
+    }
+}
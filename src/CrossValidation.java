@@ -0,0 +1,118 @@
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+
+/**
+ * Five by two cross validation comparing a set of trainers.
+ * Every (fold, half, trainer) run is an independent job with its own trainer and network, so jobs share nothing but
+ * read-only views of the dataset and run concurrently on a bounded pool. Trainers and networks are built in job order
+ * on the calling thread, which keeps the factory's seeding reproducible whatever order the jobs finish in.
+ * The error of every test sample is written into a primitive array per trainer at an offset owned by the job, so the
+ * results are collected without locking.
+ */
+public class CrossValidation {
+
+    private static final int FOLDS = 5;
+
+    private final List<NetworkTrainerType> trainers;
+    private final NetworkType networkType;
+    private final int threads;
+    private final RandomSource random;
+
+    CrossValidation(List<NetworkTrainerType> trainers, NetworkType networkType, int threads, RandomSource random) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Cross validation needs at least one thread!");
+        }
+        this.trainers = new ArrayList<>(trainers);
+        this.networkType = networkType;
+        this.threads = threads;
+        this.random = random;
+    }
+
+    /**
+     * Run every job and return the absolute error of each test sample by trainer. Each trainer's array holds the
+     * errors of fold k at [k * size, (k + 1) * size), the testing half first and the training half second.
+     */
+    public Map<NetworkTrainerType, double[]> run(Dataset dataset) {
+        return run(dataset, (fold, type) -> { });
+    }
+
+    /**
+     * Run every job, notifying the listener from the worker thread as each (fold, trainer) job completes
+     */
+    public Map<NetworkTrainerType, double[]> run(Dataset dataset, BiConsumer<Integer, NetworkTrainerType> listener) {
+        int size = dataset.size();
+        Map<NetworkTrainerType, double[]> errors = new EnumMap<>(NetworkTrainerType.class);
+        for (NetworkTrainerType type : trainers) {
+            errors.put(type, new double[FOLDS * size]);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> jobs = new ArrayList<>(FOLDS * 2 * trainers.size());
+        try {
+            for (int k = 0; k < FOLDS; k++) {
+                // Each fold shuffles its own view, the dataset and the other folds keep their order
+                Dataset fold = dataset.subList(0, size);
+                fold.shuffle(random.generator(k));
+                Dataset trainSet = fold.getTrainingSet();
+                Dataset testSet = fold.getTestingSet();
+
+                for (int swap = 0; swap < 2; swap++) {
+                    // The training set and test set are swapped for the second half of the fold
+                    Dataset training = swap == 0 ? trainSet : testSet;
+                    Dataset testing = swap == 0 ? testSet : trainSet;
+                    int offset = k * size + (swap == 0 ? 0 : testSet.size());
+                    int foldNumber = k;
+
+                    for (NetworkTrainerType type : trainers) {
+                        INetworkTrainer trainer = NetworkFactory.buildNetworkTrainer(type);
+                        INeuralNetwork network = NetworkFactory.buildNewNetwork(networkType);
+                        double[] trainerErrors = errors.get(type);
+                        // Training shuffles the view it is given, so every job works on views of its own
+                        Dataset jobTraining = training.subList(0, training.size());
+                        Dataset jobTesting = testing.subList(0, testing.size());
+                        jobs.add(executor.submit(() -> {
+                            trainer.train(network, jobTraining);
+                            computeErrors(jobTesting, network, trainerErrors, offset);
+                            listener.accept(foldNumber, type);
+                        }));
+                    }
+                }
+            }
+
+            for (Future<?> job : jobs) {
+                job.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Cross validation was interrupted", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Cross validation run failed", ex.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        return errors;
+    }
+
+    /**
+     * Write the summed absolute error of every test sample into errors[offset, offset + testSet.size())
+     */
+    static void computeErrors(Dataset testSet, INeuralNetwork network, double[] errors, int offset) {
+        // Get the network's approximation for the whole test set in one batch
+        double[] networkOutputs = network.executeBatch(testSet, null);
+        int classes = testSet.getClasses();
+        for (int i = 0; i < testSet.size(); i++) {
+            double error = 0.0;
+            for (int j = 0; j < classes; j++) {
+                error += Math.abs(networkOutputs[i * classes + j] - testSet.getOutput(i, j));
+            }
+            errors[offset + i] = error;
+        }
+    }
+}
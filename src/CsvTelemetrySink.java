@@ -0,0 +1,52 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes training records as comma separated rows below a header line
+ */
+public class CsvTelemetrySink implements ITelemetrySink {
+
+    static final String HEADER = "trainer,run,generation,best_error,mean_error,evaluation_ms,reproduction_ms,evaluations,evaluations_per_second";
+
+    private final Writer writer;
+    private final StringBuilder line = new StringBuilder(160);
+
+    public CsvTelemetrySink(Path path) throws IOException {
+        this(Files.newBufferedWriter(path, StandardCharsets.UTF_8));
+    }
+
+    public CsvTelemetrySink(Writer writer) throws IOException {
+        this.writer = writer instanceof BufferedWriter ? writer : new BufferedWriter(writer);
+        this.writer.write(HEADER);
+        this.writer.write('\n');
+    }
+
+    @Override
+    public void write(TrainingRecord record) throws IOException {
+        line.setLength(0);
+        line.append(record.getTrainer()).append(',')
+                .append(record.getRun()).append(',')
+                .append(record.getGeneration()).append(',')
+                .append(record.getBestError()).append(',')
+                .append(record.getMeanError()).append(',')
+                .append(record.getEvaluationNanos() / 1e6).append(',')
+                .append(record.getReproductionNanos() / 1e6).append(',')
+                .append(record.getEvaluations()).append(',')
+                .append(record.getEvaluationsPerSecond()).append('\n');
+        writer.append(line);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
@@ -1,6 +1,4 @@
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.util.random.RandomGenerator;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -14,73 +12,64 @@ public class DENetworkTrainer extends NetworkTrainerBase {
     private final double beta;
     private final double crossoverRate;
 
-    private final List<Integer> indexList;
-
     DENetworkTrainer(int populationSize, double beta, double crossoverRate) {
         super(populationSize);
         this.beta = beta;
         this.crossoverRate = crossoverRate;
-        indexList = new ArrayList<>(populationSize);
-        for (int i = 0; i < populationSize; i++) {
-            indexList.add(i);
-        }
     }
 
     @Override
-    public INeuralNetwork train(INeuralNetwork network, Dataset samples) {
-        startTimer();
-        // Initialize new population
-        Population population = IntStream.range(0, populationSize)
+    public INeuralNetwork train(INeuralNetwork network, IDatasetSource trainingSet, Dataset validationSet) {
+        return evolve(network, trainingSet, validationSet, NetworkTrainerType.DENetworkTrainer);
+    }
+
+    @Override
+    protected Population initializePopulation(INeuralNetwork network, RandomSource random) {
+        return IntStream.range(0, populationSize)
                 .parallel()
-                .mapToObj(i -> initializeIndividual(network))
+                .mapToObj(i -> initializeIndividual(network, random.generator(i)))
                 .collect(Collectors.toCollection(Population::new));
+    }
 
-        // Split training set into training and validation sets
-        samples.shuffle();
-        Dataset validationSet = new Dataset(samples.subList(0, samples.size() / 10));
-        Dataset trainingSet = new Dataset(samples.subList(samples.size() / 10, samples.size()));
-
-        int generation = 0;
-        // While stopping conditions haven't been reached, create the next generation and increment
-        while (shouldContinue(validatePopulation(population, validationSet, generation), generation, network)) {
-            population = createNextGeneration(network, population, trainingSet);
-            generation++;
-        }
-
-        INeuralNetwork best = bestNetwork.buildNetwork();
-        printConvergence(NetworkTrainerType.DENetworkTrainer, best);
-        return best;
+    @Override
+    protected Population nextGeneration(Population population, IDatasetSource trainingSet, int generation,
+                                        RandomSource random) {
+        // Parents carry their fitness over from the previous generation, only the initial population is scored here
+        evaluatePopulation(population, trainingSet);
+        return createNextGeneration(population, trainingSet, random);
     }
 
     /**
-     * Generate a new WeightMatrix representation of the given network with random weights
+     * Generate a new genome for the given network with random weights and biases
      */
-    private WeightMatrix initializeIndividual(INeuralNetwork network) {
+    private WeightMatrix initializeIndividual(INeuralNetwork network, RandomGenerator random) {
         WeightMatrix individual = new WeightMatrix(network);
-        List<Double> weights = individual.getWeights();
+        double[] genes = individual.getGenes();
 
-        // Set weights to random value between [-5.0, 5.0]
-        IntStream.range(0, weights.size())
-                .parallel()
-                .forEach(i -> weights.set(i, (this.random.nextDouble() * 10) - 5));
+        // Set weights and biases to random value between [-5.0, 5.0]
+        for (int i = 0; i < genes.length; i++) {
+            genes[i] = (random.nextDouble() * 10) - 5;
+        }
 
         return individual;
     }
 
     /**
-     * Loop over the population, generating a child for each individual and adding the stronger of the two to the next
-     * generation.
+     * Generate a trial vector for every individual in parallel, score all trials in a single pass over the training
+     * set and keep the stronger of each parent and trial in the next generation. Parent fitness is reused from the
+     * previous generation, so only the trials are evaluated, and each trial only has to beat its own parent.
      */
-    private Population createNextGeneration(INeuralNetwork network, Population population, Dataset trainingSet) {
-        Population nextGeneration = new Population();
+    private Population createNextGeneration(Population population, IDatasetSource trainingSet, RandomSource random) {
+        Population trials = IntStream.range(0, populationSize)
+                .parallel()
+                .mapToObj(i -> createChild(population, i, random.generator(i)))
+                .collect(Collectors.toCollection(Population::new));
+        evaluatePopulation(trials, trainingSet, population);
 
+        Population nextGeneration = new Population();
         for (int i = 0; i < populationSize; i++) {
             WeightMatrix parent = population.get(i);
-            WeightMatrix child = new WeightMatrix(network, createChild(population, i));
-
-            evaluateIndividual(parent, trainingSet);
-            evaluateIndividual(child, trainingSet);
-
+            WeightMatrix child = trials.get(i);
             nextGeneration.add(parent.getFitness() < child.getFitness() ? parent : child);
         }
         return nextGeneration;
@@ -88,33 +77,38 @@ public class DENetworkTrainer extends NetworkTrainerBase {
 
     /**
      * Given the population and the index of the primary parent, choose three other distinct parents and create a child
-     * target vector according to: target = Xa * B (Xb - Xc).
+     * target vector according to: target = Xa * B (Xb - Xc). Each child has its own random generator, so children may
+     * be created concurrently.
      */
-    private List<Double> createChild(Population population, int parentIndex) {
-        // Remove parentIndex from list
-        Collections.swap(indexList, parentIndex, populationSize - 1);
-
-        // Choose a random index from the list, then swap that index out of range so it cant be chosen twice.
-        List<WeightMatrix> auxiliaryParents = new ArrayList<>(3);
-        for (int i = 2; i < 5; i++) {
-            int randomIndex = random.nextInt(populationSize - i);
-            auxiliaryParents.add(population.get(indexList.get(randomIndex)));
-            Collections.swap(indexList, randomIndex, populationSize - i);
-        }
+    private WeightMatrix createChild(Population population, int parentIndex, RandomGenerator random) {
+        int[] donors = drawDonors(random, parentIndex, population.size());
 
-        List<Double> weightsA = auxiliaryParents.get(0).getWeights();
-        List<Double> weightsB = auxiliaryParents.get(1).getWeights();
-        List<Double> weightsC = auxiliaryParents.get(2).getWeights();
+        double[] genesA = population.get(donors[0]).getGenes();
+        double[] genesB = population.get(donors[1]).getGenes();
+        double[] genesC = population.get(donors[2]).getGenes();
 
         // Cross the selected individuals
-        List<Double> childWeights = new ArrayList<>();
-        for (int i = 0; i < weightsA.size(); i++) {
-            if (random.nextDouble() < this.crossoverRate) {
-                childWeights.add(weightsA.get(i) + (beta * (weightsB.get(i) - weightsC.get(i))));
-            } else {
-                childWeights.add(weightsA.get(i));
-            }
+        WeightMatrix child = population.get(parentIndex).newOffspring();
+        operators.differentialCrossover(genesA, genesB, genesC, beta, crossoverRate, child.getGenes(), random);
+        return child;
+    }
+
+    /**
+     * Draw three distinct indices in [0, populationSize), none equal to the parent, redrawing on a collision
+     */
+    static int[] drawDonors(RandomGenerator random, int parentIndex, int populationSize) {
+        if (populationSize < 4) {
+            throw new IllegalArgumentException("Differential evolution needs at least four individuals!");
+        }
+
+        int[] donors = new int[3];
+        for (int i = 0; i < donors.length; i++) {
+            int candidate;
+            do {
+                candidate = random.nextInt(populationSize);
+            } while (candidate == parentIndex || (i > 0 && candidate == donors[0]) || (i > 1 && candidate == donors[1]));
+            donors[i] = candidate;
         }
-        return childWeights;
+        return donors;
     }
 }
@@ -1,26 +1,221 @@
-import java.util.ArrayList;
+import java.nio.DoubleBuffer;
+import java.util.AbstractList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 
-public class Dataset extends ArrayList<Sample> {
+/**
+ * Row packed dataset. The inputs of every sample are stored back to back in a buffer, as are the expected outputs, and
+ * the order of the samples is given by an index permutation over those rows. The buffers either wrap heap arrays or
+ * map a binary dataset file directly, in which case the data never has to be copied onto the heap. A mapping holds at
+ * most 2GB, so a larger file is mapped as several segments of a fixed power of two rows each.
+ * Splitting with subList, getTrainingSet or getTestingSet returns a view over the same buffers without copying any data,
+ * and shuffling only permutes the view's own copy of the index, leaving the dataset it was taken from untouched.
+ * Sample objects are copied out on demand for code that still works one sample at a time.
+ */
+public class Dataset extends AbstractList<Sample> implements RandomAccess, IDatasetSource {
 
-    public Dataset() {
+    private final int features;
+    private final int classes;
+    private final DoubleBuffer[] inputs;
+    private final DoubleBuffer[] outputs;
+    // Row r is row (r & segmentMask) of segment (r >>> segmentShift)
+    private final int segmentShift;
+    private final int segmentMask;
 
+    // Order of the rows, null while the rows are still in storage order
+    private int[] index;
+    private int offset;
+    private final int size;
+
+    /**
+     * Build a dataset over packed row-major input and output arrays
+     */
+    public Dataset(int features, int classes, double[] inputs, double[] outputs) {
+        this(features, classes, DoubleBuffer.wrap(inputs), DoubleBuffer.wrap(outputs));
+    }
+
+    /**
+     * Build a dataset over packed row-major input and output buffers, which may be memory mapped
+     */
+    public Dataset(int features, int classes, DoubleBuffer inputs, DoubleBuffer outputs) {
+        this(features, classes, new DoubleBuffer[]{inputs}, new DoubleBuffer[]{outputs}, 31);
+    }
+
+    /**
+     * Build a dataset over segments of packed row-major input and output buffers, every segment but the last holding
+     * exactly 2^segmentShift rows
+     */
+    public Dataset(int features, int classes, DoubleBuffer[] inputs, DoubleBuffer[] outputs, int segmentShift) {
+        if (inputs.length != outputs.length || segmentShift < 0 || segmentShift > 31) {
+            throw new IllegalArgumentException("Malformed dataset segments!");
+        }
+        this.features = features;
+        this.classes = classes;
+        this.inputs = inputs;
+        this.outputs = outputs;
+        this.segmentShift = segmentShift;
+        this.segmentMask = (int) ((1L << segmentShift) - 1);
+        long rows = 0;
+        for (DoubleBuffer segment : inputs) {
+            rows += segment.limit() / features;
+        }
+        this.size = Math.toIntExact(rows);
     }
 
+    /**
+     * Build a dataset from a list of samples. Datasets and views of datasets are shared without copying, any other
+     * list is packed into new arrays.
+     */
     public Dataset(List<Sample> samples) {
-        this.addAll(samples);
+        this(samples instanceof Dataset ? (Dataset) samples : pack(samples), 0, samples.size());
+    }
+
+    // View over the rows [from, to) of another dataset
+    private Dataset(Dataset source, int from, int to) {
+        this.features = source.features;
+        this.classes = source.classes;
+        this.inputs = source.inputs;
+        this.outputs = source.outputs;
+        this.segmentShift = source.segmentShift;
+        this.segmentMask = source.segmentMask;
+        this.index = source.index;
+        this.offset = source.offset + from;
+        this.size = to - from;
+    }
+
+    private static Dataset pack(List<Sample> samples) {
+        if (samples.isEmpty()) {
+            throw new IllegalArgumentException("Cannot build a dataset without samples!");
+        }
+
+        int features = samples.get(0).inputs.length;
+        int classes = samples.get(0).outputs.length;
+        double[] inputs = new double[samples.size() * features];
+        double[] outputs = new double[samples.size() * classes];
+        for (int i = 0; i < samples.size(); i++) {
+            System.arraycopy(samples.get(i).inputs, 0, inputs, i * features, features);
+            System.arraycopy(samples.get(i).outputs, 0, outputs, i * classes, classes);
+        }
+        return new Dataset(features, classes, inputs, outputs);
     }
 
+    /**
+     * Shuffle the order of the samples by permuting a private copy of the index
+     */
     public void shuffle() {
-        Collections.shuffle(this);
+        shuffle(ThreadLocalRandom.current());
+    }
+
+    /**
+     * Shuffle with the supplied generator, the same generator state always produces the same order
+     */
+    public void shuffle(RandomGenerator random) {
+        int[] permutation = new int[size];
+        for (int i = 0; i < size; i++) {
+            permutation[i] = index == null ? offset + i : index[offset + i];
+        }
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int temp = permutation[i];
+            permutation[i] = permutation[j];
+            permutation[j] = temp;
+        }
+        this.index = permutation;
+        this.offset = 0;
+    }
+
+    /**
+     * An in memory dataset is always read as a single chunk, and has nothing to release when the pass is closed
+     */
+    @Override
+    public IChunkIterator chunks() {
+        Iterator<Dataset> chunk = Collections.singletonList(this).iterator();
+        return new IChunkIterator() {
+            @Override
+            public boolean hasNext() {
+                return chunk.hasNext();
+            }
+
+            @Override
+            public Dataset next() {
+                return chunk.next();
+            }
+
+            @Override
+            public void close() {
+            }
+        };
     }
 
     public Dataset getTrainingSet() {
-        return new Dataset(this.subList(0, this.size() / 2));
+        return this.subList(0, this.size() / 2);
     }
 
     public Dataset getTestingSet() {
-        return new Dataset(this.subList(this.size() / 2, this.size()));
+        return this.subList(this.size() / 2, this.size());
+    }
+
+    /**
+     * Zero copy view over a range of this dataset in its current order
+     */
+    @Override
+    public Dataset subList(int fromIndex, int toIndex) {
+        if (fromIndex < 0 || toIndex > size || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException("Range [" + fromIndex + ", " + toIndex + ") of " + size);
+        }
+        return new Dataset(this, fromIndex, toIndex);
+    }
+
+    /**
+     * Copy the i-th sample out of the packed buffers
+     */
+    @Override
+    public Sample get(int i) {
+        int row = getRow(i);
+        double[] sampleInputs = new double[features];
+        double[] sampleOutputs = new double[classes];
+        inputs[row >>> segmentShift].get((row & segmentMask) * features, sampleInputs, 0, features);
+        outputs[row >>> segmentShift].get((row & segmentMask) * classes, sampleOutputs, 0, classes);
+        return new Sample(sampleInputs, sampleOutputs);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Position of the i-th sample of this view within the packed buffers
+     */
+    public int getRow(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+        }
+        return index == null ? offset + i : index[offset + i];
+    }
+
+    /**
+     * Copy the inputs of the i-th sample into the supplied array starting at destinationOffset
+     */
+    public void copyInputs(int i, double[] destination, int destinationOffset) {
+        int row = getRow(i);
+        inputs[row >>> segmentShift].get((row & segmentMask) * features, destination, destinationOffset, features);
+    }
+
+    public double getOutput(int i, int output) {
+        int row = getRow(i);
+        return outputs[row >>> segmentShift].get((row & segmentMask) * classes + output);
+    }
+
+    public int getFeatures() {
+        return features;
+    }
+
+    public int getClasses() {
+        return classes;
     }
 }
@@ -2,6 +2,17 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
 import java.util.Objects;
 import java.util.regex.Pattern;
@@ -10,35 +21,165 @@ import java.util.stream.Stream;
 
 /**
  * Fine access handler for .csv datasets
- * Takes a dataset type and returns a List of examples in Dataset format
+ * Takes a dataset type and returns the examples packed into a Dataset
+ * <p>
+ * Each .csv is converted once into a binary file next to it, which is memory mapped on every later load so no parsing
+ * happens at startup. The binary layout is little endian throughout:
+ * int magic, int version, int features, int classes, long rows, then rows * features input doubles followed by
+ * rows * classes output doubles.
  */
 public class DatasetFactory {
 
     private static final String PATH = "datasets/";
     private static final String CSV = ".csv";
+    private static final String BINARY = ".bin";
     private static final Pattern COMMA_DELIMITER = Pattern.compile(", ");
 
+    private static final int MAGIC = 0x4E4E4453;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 24;
+
     public static Dataset buildDataSet(DatasetType type) {
-        File file = new File(PATH.concat(type.toString()).concat(CSV));
+        File csv = new File(PATH.concat(type.toString()).concat(CSV));
+        File binary = new File(PATH.concat(type.toString()).concat(BINARY));
+
+        // Convert the csv on first use, or again if it has been edited since the last conversion
+        if (!binary.exists() || binary.lastModified() < csv.lastModified()) {
+            writeBinary(parseCsv(csv), binary.toPath());
+        }
+        return mapBinary(binary.toPath());
+    }
+
+    /**
+     * Stream a .csv dataset in chunks of the given number of rows without loading it
+     */
+    public static StreamingDataset streamDataSet(DatasetType type, int chunkRows) {
+        return new StreamingDataset(new File(PATH.concat(type.toString()).concat(CSV)), chunkRows);
+    }
+
+    /**
+     * Parse a .csv dataset onto the heap
+     */
+    public static Dataset parseCsv(File file) {
         List<String> lines = Objects.requireNonNull(getFileStream(file)).collect(Collectors.toList());
 
         String[] header = COMMA_DELIMITER.split(lines.remove(0));
         int features = Integer.parseInt(header[0]);
         int classes = Integer.parseInt(header[1]);
 
-        Dataset samples = new Dataset();
-        lines.forEach(line -> {
-            String[] parts = COMMA_DELIMITER.split(line);
-            String[] inputs = new String[features];
-            String[] outputs = new String[classes];
+        // Pack every row directly into the input and output arrays of the dataset
+        double[] inputs = new double[lines.size() * features];
+        double[] outputs = new double[lines.size() * classes];
+        for (int i = 0; i < lines.size(); i++) {
+            String[] parts = COMMA_DELIMITER.split(lines.get(i));
+            for (int j = 0; j < features; j++) {
+                inputs[i * features + j] = Double.parseDouble(parts[j]);
+            }
+            for (int j = 0; j < classes; j++) {
+                outputs[i * classes + j] = Double.parseDouble(parts[features + j]);
+            }
+        }
+
+        return new Dataset(features, classes, inputs, outputs);
+    }
 
-            System.arraycopy(parts, 0, inputs, 0, features);
-            System.arraycopy(parts, features, outputs, 0, classes);
+    /**
+     * Write a dataset in the binary format, going through a temporary file so a partial file is never left behind
+     */
+    public static void writeBinary(Dataset dataset, Path path) {
+        int features = dataset.getFeatures();
+        int classes = dataset.getClasses();
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
 
-            samples.add(new Sample(inputs, outputs));
-        });
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(features).putInt(classes).putLong(dataset.size());
+            header.flip();
+            writeFully(channel, header);
 
-        return samples;
+            // Inputs block, then outputs block, written a row at a time through one reusable buffer
+            ByteBuffer buffer = ByteBuffer.allocate(8 * Math.max(features, classes)).order(ByteOrder.LITTLE_ENDIAN);
+            double[] row = new double[features];
+            for (int i = 0; i < dataset.size(); i++) {
+                dataset.copyInputs(i, row, 0);
+                buffer.clear();
+                for (double value : row) {
+                    buffer.putDouble(value);
+                }
+                buffer.flip();
+                writeFully(channel, buffer);
+            }
+            for (int i = 0; i < dataset.size(); i++) {
+                buffer.clear();
+                for (int j = 0; j < classes; j++) {
+                    buffer.putDouble(dataset.getOutput(i, j));
+                }
+                buffer.flip();
+                writeFully(channel, buffer);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Unable to write " + path, ex);
+        }
+
+        try {
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Unable to write " + path, ex);
+        }
+    }
+
+    /**
+     * Memory map a binary dataset, the returned Dataset reads straight from the mapping. A single mapping is limited
+     * to 2GB, so the inputs and outputs are each mapped in segments of the largest power of two rows that fits.
+     */
+    public static Dataset mapBinary(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // Keep reading until the header is complete or the file ends
+            }
+            header.flip();
+            if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IllegalArgumentException(path + " is not a binary dataset!");
+            }
+            int features = header.getInt();
+            int classes = header.getInt();
+            long rows = header.getLong();
+
+            if (rows > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException(path + " has too many rows to map as a single dataset!");
+            }
+
+            int segmentShift = 31 - Integer.numberOfLeadingZeros(Integer.MAX_VALUE / (8 * Math.max(features, classes)));
+            long segmentRows = 1L << segmentShift;
+            int segments = (int) ((rows + segmentRows - 1) / segmentRows);
+            long inputBytes = 8 * rows * features;
+
+            // The mappings stay valid after the channel is closed
+            DoubleBuffer[] inputs = new DoubleBuffer[segments];
+            DoubleBuffer[] outputs = new DoubleBuffer[segments];
+            for (int i = 0; i < segments; i++) {
+                long firstRow = i * segmentRows;
+                long count = Math.min(segmentRows, rows - firstRow);
+                inputs[i] = map(channel, HEADER_BYTES + 8 * firstRow * features, 8 * count * features);
+                outputs[i] = map(channel, HEADER_BYTES + inputBytes + 8 * firstRow * classes, 8 * count * classes);
+            }
+            return new Dataset(features, classes, inputs, outputs, segmentShift);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Unable to read " + path, ex);
+        }
+    }
+
+    private static DoubleBuffer map(FileChannel channel, long position, long size) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+        return buffer.order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
     }
 
     private static Stream<String> getFileStream(File file) {
@@ -1,5 +1,4 @@
-import java.util.ArrayList;
-import java.util.List;
+import java.util.random.RandomGenerator;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -22,47 +21,45 @@ public class ESNetworkTrainer extends NetworkTrainerBase {
     }
 
     @Override
-    public INeuralNetwork train(INeuralNetwork network, Dataset samples) {
-        startTimer();
-        // Generate initial population
-        Population population = IntStream.range(0, populationSize)
+    public INeuralNetwork train(INeuralNetwork network, IDatasetSource trainingSet, Dataset validationSet) {
+        return evolve(network, trainingSet, validationSet, NetworkTrainerType.ESNetworkTrainer);
+    }
+
+    @Override
+    protected Population initializePopulation(INeuralNetwork network, RandomSource random) {
+        return IntStream.range(0, populationSize)
                 .parallel()
-                .mapToObj(i -> createIndividual(network))
+                .mapToObj(i -> createIndividual(network, random.generator(i)))
                 .collect(Collectors.toCollection(Population::new));
+    }
 
-        // Split training set into training and validation sets
-        samples.shuffle();
-        Dataset validationSet = new Dataset(samples.subList(0, samples.size() / 10));
-        Dataset trainingSet = new Dataset(samples.subList(samples.size() / 10, samples.size()));
-
-        int generation = 0;
-        while (shouldContinue(validatePopulation(population, validationSet, generation), generation, network)) {
-            // Perform reproductive step, adding children into population
-            generateOffspring(population, generation);
-
-            // Remove the least fit individuals to maintain population size
-            survivalOfTheFittest(population, trainingSet);
-            generation++;
-        }
-
-        // Return the best network
-        INeuralNetwork best = bestNetwork.buildNetwork();
-        printConvergence(NetworkTrainerType.ESNetworkTrainer, best);
-        return best;
+    @Override
+    protected Population nextGeneration(Population population, IDatasetSource trainingSet, int generation,
+                                        RandomSource random) {
+        // Perform reproductive step, adding children into population
+        generateOffspring(population, generation, random);
+
+        // Remove the least fit individuals to maintain population size
+        survivalOfTheFittest(population, trainingSet);
+        return population;
     }
 
     /**
-     * Generate a new WeightMatrix representation of the given network with random weights and sigma values
+     * Generate a new genome for the given network with random weights, biases and sigma values
      */
-    private WeightMatrix createIndividual(INeuralNetwork network) {
-        WeightMatrix individual = new WeightMatrix(network);
-        List<Double> weights = individual.getWeights();
-        // Set weights to random value between [-5.0, 5.0]
-        IntStream.range(0, weights.size()).parallel().forEach(i -> weights.set(i, (this.random.nextDouble() * 10) - 5));
-
+    private WeightMatrix createIndividual(INeuralNetwork network, RandomGenerator random) {
+        WeightMatrix individual = new WeightMatrix(network, true);
+        double[] genes = individual.getGenes();
+        int parameters = individual.getParameterCount();
+
+        // Set weights and biases to random value between [-5.0, 5.0]
+        for (int i = 0; i < parameters; i++) {
+            genes[i] = (random.nextDouble() * 10) - 5;
+        }
         // Set sigmas to random value between [-2.0, 2.0]
-        List<Double> sigmas = IntStream.range(0, weights.size()).parallel().mapToObj(i -> (this.random.nextDouble() * 4) - 2).collect(Collectors.toList());
-        individual.setSigmas(sigmas);
+        for (int i = parameters; i < genes.length; i++) {
+            genes[i] = (random.nextDouble() * 4) - 2;
+        }
 
         return individual;
     }
@@ -70,61 +67,45 @@ public class ESNetworkTrainer extends NetworkTrainerBase {
     /**
      * Reproductive step: Select parents, perform crossover and mutation, add children to population
      */
-    private void generateOffspring(Population population, int generation) {
+    private void generateOffspring(Population population, int generation, RandomSource random) {
         for (int i = 0; i < this.numOffspring; i++) {
+            RandomGenerator offspringRandom = random.generator(i);
             // Select parents
-            Population parents = selectParents(population, numParents);
+            Population parents = selectParents(population, numParents, offspringRandom);
             // Crossover
-            WeightMatrix child = crossover(parents);
+            WeightMatrix child = crossover(parents, offspringRandom);
             // Mutation
-            mutate(child, generation % 30 == 0);
+            mutate(child, generation % 30 == 0, offspringRandom);
             // Add offspring into population
             population.add(child);
         }
     }
 
     /**
-     * Probabilistically mutate using stored probabilities
+     * Probabilistically mutate using stored probabilities, each parameter is perturbed by its own sigma
      */
-    private void mutate(WeightMatrix individual, boolean hyperMutate) {
-        List<Double> weights = individual.getWeights();
-        List<Double> sigmas = individual.getSigmas();
+    private void mutate(WeightMatrix individual, boolean hyperMutate, RandomGenerator random) {
+        double[] genes = individual.getGenes();
+        int parameters = individual.getParameterCount();
 
         double rate = hyperMutate ? this.mutationRate * 10 : this.mutationRate;
+        double scale = hyperMutate ? 3 : 1;
 
-        IntStream.range(0, weights.size() / 2)
-                .filter(i -> this.random.nextFloat() < rate)
-                .parallel()
-                .forEach(i -> weights.set(i, weights.get(i) + this.random.nextGaussian() * sigmas.get(i) * (hyperMutate ? 3 : 1)));
+        // The sigma of each parameter is stored parameterCount genes after it
+        operators.gaussianMutation(genes, parameters, rate, scale, parameters, random);
     }
 
     /**
-     * Perform uniform crossover between N parents
+     * Perform uniform crossover between N parents, every weight, bias and sigma is taken from a random parent
      */
-    private WeightMatrix crossover(Population parents) {
-        List<Double> childWeights = new ArrayList<>(parents.get(0).getWeights());
-        List<Double> childSigmas = new ArrayList<>(parents.get(0).getWeights());
-
-        // Retrieve the weights and sigmas of the parents from their respective WeightMatrix collections
-        List<List<Double>> parentWeights = parents.parallelStream().map(WeightMatrix::getWeights).collect(Collectors.toList());
-        List<List<Double>> parentSigmas = parents.parallelStream().map(WeightMatrix::getSigmas).collect(Collectors.toList());
-
-        // Iterate over the weights, choosing each gene from a random parent in the parent population provided
-        IntStream.range(0, childWeights.size()).parallel().forEach(i -> {
-            int parentIndex = random.nextInt(numParents);
-            childWeights.set(i, parentWeights.get(parentIndex).get(i));
-        });
-
-        // Iterate over the weights, choosing each gene from a random parent in the parent population provided
-        IntStream.range(0, childSigmas.size()).parallel().forEach(i -> {
-            int parentIndex = random.nextInt(numParents);
-            childSigmas.set(i, parentSigmas.get(parentIndex).get(i));
-        });
-
-        // Construct and return the child object
-        WeightMatrix child = new WeightMatrix(parents.get(0).buildNetwork());
-        child.setWeights(childWeights);
-        child.setSigmas(childSigmas);
+    private WeightMatrix crossover(Population parents, RandomGenerator random) {
+        double[][] parentGenes = new double[parents.size()][];
+        for (int i = 0; i < parentGenes.length; i++) {
+            parentGenes[i] = parents.get(i).getGenes();
+        }
+
+        WeightMatrix child = parents.get(0).newOffspring();
+        operators.uniformCrossover(parentGenes, child.getGenes(), random);
         return child;
     }
 
@@ -132,7 +113,7 @@ public class ESNetworkTrainer extends NetworkTrainerBase {
      * Run each individual against the training set to evaluate its fitness
      * then remove the least fit individuals from the population to maintain size
      */
-    private void survivalOfTheFittest(Population population, Dataset trainingData) {
+    private void survivalOfTheFittest(Population population, IDatasetSource trainingData) {
         evaluatePopulation(population, trainingData);
 
         // Remove least fit individuals
@@ -0,0 +1,20 @@
+/**
+ * Stop once the run has scored a number of individuals, or for backpropagation trained on a number of samples.
+ * Genomes answered by the fitness cache are not counted.
+ */
+public class EvaluationBudgetStoppingPolicy implements IStoppingPolicy {
+
+    private final long maxEvaluations;
+
+    public EvaluationBudgetStoppingPolicy(long maxEvaluations) {
+        if (maxEvaluations < 1) {
+            throw new IllegalArgumentException("The evaluation budget must be positive!");
+        }
+        this.maxEvaluations = maxEvaluations;
+    }
+
+    @Override
+    public boolean shouldStop(TrainingProgress progress) {
+        return progress.getEvaluations() >= maxEvaluations;
+    }
+}
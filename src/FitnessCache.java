@@ -0,0 +1,73 @@
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded least recently used cache from parameter vectors to the fitness they scored on the current training set.
+ * Entries are found through a hash of the weights and biases but always compared in full, so two genomes only share
+ * a fitness when every parameter is identical. Crossover between similar parents often recreates an existing genome,
+ * those children are looked up here instead of being scored again. The cache must be cleared whenever the training set changes.
+ */
+public class FitnessCache {
+
+    private final Map<Key, Double> entries;
+
+    public FitnessCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Fitness cache must hold at least one genome!");
+        }
+        this.entries = new LinkedHashMap<Key, Double>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Double> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Set the fitness of the individual if an identical genome has been scored, returning whether it was found
+     */
+    public synchronized boolean lookup(WeightMatrix individual) {
+        Double fitness = entries.get(new Key(individual));
+        if (fitness == null) {
+            return false;
+        }
+        individual.setFitness(fitness);
+        return true;
+    }
+
+    /**
+     * Record the fitness of an individual that has just been scored
+     */
+    public synchronized void store(WeightMatrix individual) {
+        entries.put(new Key(individual), individual.getFitness());
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Copy of a parameter vector with its hash computed once
+     */
+    private static final class Key {
+
+        private final double[] weights;
+        private final int hash;
+
+        Key(WeightMatrix individual) {
+            this.weights = Arrays.copyOf(individual.getGenes(), individual.getParameterCount());
+            this.hash = Arrays.hashCode(this.weights);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && ((Key) o).hash == hash && Arrays.equals(((Key) o).weights, weights);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
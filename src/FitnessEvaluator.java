@@ -0,0 +1,91 @@
+/**
+ * Stateless evaluator that scores individuals against a dataset without writing them into a network.
+ * The dimensions and activation function are captured once from a template network, each call then runs the batched
+ * forward pass directly over the individual's gene array on per-thread scratch buffers.
+ * Nothing is shared between calls, so any number of individuals may be evaluated concurrently.
+ */
+public class FitnessEvaluator {
+
+    private final int[] dimensions;
+    private final int[] layerOffsets;
+    private final IActivationFunction activationFunction;
+
+    private final ThreadLocal<double[][]> batchBuffers;
+    private final ThreadLocal<double[]> outputBuffers;
+
+    public FitnessEvaluator(INeuralNetwork network) {
+        this.dimensions = FlatMultiLayerPerceptron.getDimensions(network);
+        this.layerOffsets = FlatMultiLayerPerceptron.computeLayerOffsets(dimensions);
+        this.activationFunction = network.getActivationFunction();
+
+        this.batchBuffers = ThreadLocal.withInitial(() -> BatchKernel.createScratch(dimensions));
+        this.outputBuffers = ThreadLocal.withInitial(() -> new double[BatchKernel.BLOCK_ROWS * dimensions[dimensions.length - 1]]);
+    }
+
+    /**
+     * Sum the error of an individual over every sample of the dataset on the calling thread
+     */
+    public double evaluate(WeightMatrix individual, Dataset samples) {
+        return evaluate(individual.getGenes(), samples, 0, samples.size());
+    }
+
+    /**
+     * Sum the error of a flat parameter array, such as the genes of an individual, over samples [from, to) on the
+     * calling thread, one block of samples at a time
+     */
+    public double evaluate(double[] parameters, Dataset samples, int from, int to) {
+        return evaluate(parameters, samples, from, to, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Sum the error over samples [from, to) a block at a time, giving up once the sum exceeds the cutoff. The error of
+     * every sample is non-negative, so a sum past the cutoff can only grow and the partial sum is returned as it is.
+     */
+    public double evaluate(double[] parameters, Dataset samples, int from, int to, double cutoff) {
+        double[][] scratch = batchBuffers.get();
+        double[] outputs = outputBuffers.get();
+        int outputSize = dimensions[dimensions.length - 1];
+
+        double error = 0.0;
+        for (int start = from; start < to && error <= cutoff; start += BatchKernel.BLOCK_ROWS) {
+            int end = Math.min(to, start + BatchKernel.BLOCK_ROWS);
+            BatchKernel.forward(dimensions, layerOffsets, parameters, activationFunction, samples, start, end, scratch, outputs);
+            for (int i = start; i < end; i++) {
+                error += meanSquaredError(outputs, (i - start) * outputSize, samples, i);
+            }
+        }
+        return error;
+    }
+
+    /**
+     * Normalized mean squared error, identical to NetworkTrainerBase.meanSquaredError
+     */
+    static double meanSquaredError(double[] networkOutputs, double[] expectedOutputs) {
+        return meanSquaredError(networkOutputs, 0, expectedOutputs);
+    }
+
+    /**
+     * Normalized mean squared error of one row of a packed output buffer
+     */
+    static double meanSquaredError(double[] networkOutputs, int offset, double[] expectedOutputs) {
+        double errorSum = 0.0;
+        for (int i = 0; i < expectedOutputs.length; i++) {
+            double difference = networkOutputs[offset + i] - expectedOutputs[i];
+            errorSum += difference * difference;
+        }
+        return errorSum / (expectedOutputs.length * expectedOutputs.length);
+    }
+
+    /**
+     * Normalized mean squared error of one row of a packed output buffer against the i-th sample of a dataset
+     */
+    static double meanSquaredError(double[] networkOutputs, int offset, Dataset samples, int i) {
+        int classes = samples.getClasses();
+        double errorSum = 0.0;
+        for (int j = 0; j < classes; j++) {
+            double difference = networkOutputs[offset + j] - samples.getOutput(i, j);
+            errorSum += difference * difference;
+        }
+        return errorSum / (classes * classes);
+    }
+}
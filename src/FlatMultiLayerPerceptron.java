@@ -0,0 +1,248 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * Multilayer perceptron that stores every weight and bias of the network in one contiguous primitive array.
+ * Each layer occupies a block of the array made up of one row-major [w0 .. wn-1, bias] row per neuron, so the forward
+ * pass is a sequence of tight dot products over primitives and does not allocate once the per-thread scratch buffers
+ * exist. The Layer and Neuron objects returned by getLayer are views bound to the same array, which keeps the network
+ * usable by trainers that operate neuron by neuron.
+ */
+public class FlatMultiLayerPerceptron implements INeuralNetwork {
+
+    private final int[] dimensions;
+    private final int[] layerOffsets;
+    private final double[] parameters;
+    private final List<Layer> layers;
+    private final IActivationFunction activationFunction;
+
+    // Hidden layer activations, one set per thread so execute may be called concurrently
+    private final ThreadLocal<double[][]> buffers;
+    private final ThreadLocal<double[][]> batchBuffers;
+
+    private double convergenceTime;
+
+    FlatMultiLayerPerceptron(IActivationFunction activationFunction, int[] networkDimensions) {
+        this(activationFunction, networkDimensions, null, ThreadLocalRandom.current());
+    }
+
+    /**
+     * Create a network whose initial weights and biases are drawn from the supplied generator
+     */
+    FlatMultiLayerPerceptron(IActivationFunction activationFunction, int[] networkDimensions, RandomGenerator random) {
+        this(activationFunction, networkDimensions, null, random);
+    }
+
+    /**
+     * Build a network that reads its weights and biases directly from the start of the supplied array without copying
+     * it, so changes to the array are immediately visible to the network
+     */
+    FlatMultiLayerPerceptron(IActivationFunction activationFunction, int[] networkDimensions, double[] parameters) {
+        this(activationFunction, networkDimensions, parameters, null);
+    }
+
+    // Bind to the supplied parameters, or allocate and randomly initialize new ones when there are none
+    private FlatMultiLayerPerceptron(IActivationFunction activationFunction, int[] networkDimensions, double[] parameters,
+                                     RandomGenerator random) {
+        if (networkDimensions == null || networkDimensions.length < 2) {
+            throw new IllegalArgumentException("Invalid network configuration!");
+        }
+
+        this.activationFunction = activationFunction;
+        this.dimensions = networkDimensions.clone();
+        this.layerOffsets = computeLayerOffsets(this.dimensions);
+        int parameterCount = layerOffsets[layerOffsets.length - 1];
+        if (parameters != null && parameters.length < parameterCount) {
+            throw new IllegalArgumentException("Parameter array is too small for the network!");
+        }
+        this.parameters = parameters != null ? parameters : new double[parameterCount];
+        this.buffers = ThreadLocal.withInitial(() -> createBuffers(this.dimensions));
+        this.batchBuffers = ThreadLocal.withInitial(() -> BatchKernel.createScratch(this.dimensions));
+
+        this.layers = new ArrayList<>(dimensions.length - 1);
+        for (int i = 1; i < dimensions.length; i++) {
+            this.layers.add(new Layer(dimensions[i], dimensions[i - 1], activationFunction, this.parameters, layerOffsets[i - 1]));
+        }
+
+        // Randomly initialize a network that owns its parameters, a bound network keeps the values it was given
+        if (parameters == null) {
+            this.layers.forEach(layer -> layer.getNeurons().forEach(neuron -> neuron.initializeWeights(random)));
+        }
+    }
+
+    /**
+     * Build a flat copy of an existing network, copying every weight and bias so both produce identical outputs
+     */
+    FlatMultiLayerPerceptron(IActivationFunction activationFunction, INeuralNetwork network) {
+        this(activationFunction, getDimensions(network));
+        packParameters(network, parameters);
+    }
+
+    /**
+     * Execute a forward propagation through the network using the supplied array as inputs
+     */
+    @Override
+    public double[] execute(double[] inputs) {
+        return execute(inputs, new double[dimensions[dimensions.length - 1]]);
+    }
+
+    /**
+     * Execute a forward propagation, writing the network outputs into the supplied array rather than allocating one
+     */
+    public double[] execute(double[] inputs, double[] outputs) {
+        if (inputs.length != dimensions[0]) {
+            throw new IllegalArgumentException("Input/Network size mismatch!");
+        }
+
+        forward(dimensions, layerOffsets, parameters, activationFunction, inputs, buffers.get(), outputs);
+        return outputs;
+    }
+
+    /**
+     * Execute a forward propagation for every sample in the dataset, writing the outputs row by row into the supplied
+     * buffer. A new buffer is only allocated when the one supplied is missing or too small.
+     */
+    @Override
+    public double[] executeBatch(Dataset samples, double[] outputs) {
+        outputs = BatchKernel.ensureCapacity(outputs, samples.size(), dimensions);
+        BatchKernel.forward(dimensions, layerOffsets, parameters, activationFunction,
+                samples, 0, samples.size(), batchBuffers.get(), outputs);
+        return outputs;
+    }
+
+    /**
+     * Forward pass over a flat parameter array. Hidden activations are written to the supplied scratch buffers and the
+     * output layer, which does not use the activation function, is written to outputs. The accumulation order matches
+     * Neuron.execute exactly so results are bit for bit identical to MultiLayerPerceptron.
+     */
+    static void forward(int[] dimensions, int[] layerOffsets, double[] parameters, IActivationFunction activationFunction,
+                        double[] inputs, double[][] scratch, double[] outputs) {
+        int lastLayer = dimensions.length - 2;
+        double[] layerInputs = inputs;
+
+        for (int l = 0; l <= lastLayer; l++) {
+            int connections = dimensions[l];
+            int size = dimensions[l + 1];
+            double[] layerOutputs = l == lastLayer ? outputs : scratch[l];
+
+            int row = layerOffsets[l];
+            for (int j = 0; j < size; j++, row += connections + 1) {
+                double sum = parameters[row + connections];
+                for (int k = 0; k < connections; k++) {
+                    sum += layerInputs[k] * parameters[row + k];
+                }
+                layerOutputs[j] = l == lastLayer ? sum : activationFunction.compute(sum);
+            }
+            layerInputs = layerOutputs;
+        }
+    }
+
+    /**
+     * Compute the starting index of each layer's block within the flat parameter array, the final entry holds the
+     * total number of parameters
+     */
+    static int[] computeLayerOffsets(int[] dimensions) {
+        int[] offsets = new int[dimensions.length];
+        for (int i = 1; i < dimensions.length; i++) {
+            offsets[i] = offsets[i - 1] + dimensions[i] * (dimensions[i - 1] + 1);
+        }
+        return offsets;
+    }
+
+    /**
+     * Allocate one activation buffer for each hidden layer of a network with the given dimensions
+     */
+    static double[][] createBuffers(int[] dimensions) {
+        double[][] buffers = new double[dimensions.length - 2][];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = new double[dimensions[i + 1]];
+        }
+        return buffers;
+    }
+
+    /**
+     * Copy the weights and biases of an arbitrary network into a flat parameter array
+     */
+    static double[] packParameters(INeuralNetwork network, double[] parameters) {
+        int row = 0;
+        for (int i = 0; i < network.getSize(); i++) {
+            Layer layer = network.getLayer(i);
+            for (int j = 0; j < layer.size; j++) {
+                Neuron neuron = layer.getNeuron(j);
+                for (int k = 0; k < neuron.size; k++) {
+                    parameters[row++] = neuron.getWeight(k);
+                }
+                parameters[row++] = neuron.getBias();
+            }
+        }
+        return parameters;
+    }
+
+    /**
+     * Copy a flat parameter array back into the weights and biases of an arbitrary network
+     */
+    static void unpackParameters(INeuralNetwork network, double[] parameters) {
+        int row = 0;
+        for (int i = 0; i < network.getSize(); i++) {
+            Layer layer = network.getLayer(i);
+            for (int j = 0; j < layer.size; j++) {
+                Neuron neuron = layer.getNeuron(j);
+                neuron.setParameters(parameters, row);
+                row += neuron.size + 1;
+            }
+        }
+    }
+
+    /**
+     * Recover the layer dimensions, including the input layer, of an arbitrary network
+     */
+    static int[] getDimensions(INeuralNetwork network) {
+        int[] dimensions = new int[network.getSize() + 1];
+        dimensions[0] = network.getLayer(0).getNeuron(0).size;
+        for (int i = 0; i < network.getSize(); i++) {
+            dimensions[i + 1] = network.getLayer(i).size;
+        }
+        return dimensions;
+    }
+
+    public double[] getParameters() {
+        return this.parameters;
+    }
+
+    @Override
+    public Layer getLayer(int index) {
+        return this.layers.get(index);
+    }
+
+    @Override
+    public WeightMatrix constructWeightMatrix() {
+        return new WeightMatrix(this);
+    }
+
+    @Override
+    public int getSize() {
+        return this.layers.size();
+    }
+
+    @Override
+    public double getConvergence() {
+        return this.convergenceTime;
+    }
+
+    @Override
+    public void setConvergence(double convergenceTime) {
+        this.convergenceTime = convergenceTime;
+    }
+
+    @Override
+    public double computeActivationDerivative(double input) {
+        return this.activationFunction.computeDerivative(input);
+    }
+
+    @Override
+    public IActivationFunction getActivationFunction() {
+        return this.activationFunction;
+    }
+}
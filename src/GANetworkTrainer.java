@@ -1,7 +1,4 @@
-import java.util.ArrayList;
-import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.random.RandomGenerator;
 
 /**
  * Implementation of the basic Genetic Algorithm.
@@ -23,58 +20,56 @@ public class GANetworkTrainer extends NetworkTrainerBase {
     }
 
     @Override
-    public INeuralNetwork train(INeuralNetwork network, Dataset samples) {
-        startTimer();
-        //initialize population
+    public INeuralNetwork train(INeuralNetwork network, IDatasetSource trainingSet, Dataset validationSet) {
+        return evolve(network, trainingSet, validationSet, NetworkTrainerType.GANetworkTrainer);
+    }
+
+    @Override
+    protected Population initializePopulation(INeuralNetwork network, RandomSource random) {
         Population population = new Population();
         for (int i = 0; i < populationSize; i++) {
-            population.add(createIndividual(network));
+            population.add(createIndividual(network, random.generator(i)));
         }
+        return population;
+    }
 
-        // Split training set into training and validation sets
-        samples.shuffle();
-        Dataset validationSet = new Dataset(samples.subList(0, samples.size() / 10));
-        Dataset trainingSet = new Dataset(samples.subList(samples.size() / 10, samples.size()));
-
-        int generation = 0;
-        while (shouldContinue(validatePopulation(population, validationSet, generation), generation, network)) {
-            generateOffspring(population);
-
-            // Evaluate all the individuals in the population
-            evaluatePopulation(population, trainingSet);
-            population.sortByFitness();
+    @Override
+    protected Population nextGeneration(Population population, IDatasetSource trainingSet, int generation,
+                                        RandomSource random) {
+        generateOffspring(population, random);
 
-            // Remove the weakest individuals to maintain steady state population size
-            population = new Population(population.subList(0, populationSize));
-            generation++;
-        }
+        // Evaluate all the individuals in the population
+        evaluatePopulation(population, trainingSet);
+        population.sortByFitness();
 
-        INeuralNetwork best = bestNetwork.buildNetwork();
-        printConvergence(NetworkTrainerType.GANetworkTrainer, best);
-        return best;
+        // Remove the weakest individuals to maintain steady state population size
+        return new Population(population.subList(0, populationSize));
     }
 
     /**
      * Perform the reproductive set.
      * 1) Parent Selection, 2) Crossover, 3) Mutation
      */
-    private void generateOffspring(Population population) {
+    private void generateOffspring(Population population, RandomSource random) {
         for (int i = 0; i < this.numOffspring; i++) {
-            Population parents = selectParents(population, numParents);
-            WeightMatrix child = crossover(parents);
-            mutation(child.getWeights());
+            RandomGenerator offspringRandom = random.generator(i);
+            Population parents = selectParents(population, numParents, offspringRandom);
+            WeightMatrix child = crossover(parents, offspringRandom);
+            mutation(child.getGenes(), offspringRandom);
             population.add(child);
         }
     }
 
     /**
-     * Build a new randomly initialized weight matrix for the supplied network.
+     * Build a new randomly initialized genome for the supplied network.
      */
-    protected WeightMatrix createIndividual(INeuralNetwork network) {
+    protected WeightMatrix createIndividual(INeuralNetwork network, RandomGenerator random) {
         WeightMatrix individual = new WeightMatrix(network);
-        List<Double> weights = individual.getWeights();
-        // Set weights to random value between [-5.0, 5.0]
-        IntStream.range(0, weights.size()).parallel().forEach(i -> weights.set(i, (this.random.nextDouble() * 10) - 5));
+        double[] genes = individual.getGenes();
+        // Set weights and biases to random value between [-5.0, 5.0]
+        for (int i = 0; i < genes.length; i++) {
+            genes[i] = (random.nextDouble() * 10) - 5;
+        }
 
         return individual;
     }
@@ -82,22 +77,15 @@ public class GANetworkTrainer extends NetworkTrainerBase {
     /**
      * Perform uniform crossover between N parents
      */
-    protected WeightMatrix crossover(Population parents) {
-        int numParents = parents.size();
-        List<Double> childWeights = new ArrayList<>(parents.get(0).getWeights());
-
-        // Retrieve the weights and sigmas of the parents from their respective WeightMatrix collections
-        List<List<Double>> parentWeights = parents.parallelStream().map(WeightMatrix::getWeights).collect(Collectors.toList());
-
-        // Iterate over the weights, choosing each gene from a random parent in the parent population provided
-        IntStream.range(0, childWeights.size()).parallel().forEach(i -> {
-            int parentIndex = random.nextInt(numParents);
-            childWeights.set(i, parentWeights.get(parentIndex).get(i));
-        });
+    protected WeightMatrix crossover(Population parents, RandomGenerator random) {
+        double[][] parentGenes = new double[parents.size()][];
+        for (int i = 0; i < parentGenes.length; i++) {
+            parentGenes[i] = parents.get(i).getGenes();
+        }
 
-        // Construct and return the child object
-        WeightMatrix child = new WeightMatrix(parents.get(0).buildNetwork());
-        child.setWeights(childWeights);
+        // Choose each gene from a random parent in the parent population provided
+        WeightMatrix child = parents.get(0).newOffspring();
+        operators.uniformCrossover(parentGenes, child.getGenes(), random);
         return child;
     }
 
@@ -105,10 +93,7 @@ public class GANetworkTrainer extends NetworkTrainerBase {
      * Iterate over each of the genes in the offspring, probabilistically modifying values according to
      * a gaussian distribution N(0,1)
      */
-    private void mutation(List<Double> offspring) {
-        IntStream.range(0, offspring.size())
-                .filter(i -> random.nextDouble() < mutationRate)
-                .parallel()
-                .forEach(i -> offspring.set(i, offspring.get(i) + random.nextGaussian()));
+    private void mutation(double[] offspring, RandomGenerator random) {
+        operators.gaussianMutation(offspring, offspring.length, mutationRate, 1.0, -1, random);
     }
 }
@@ -0,0 +1,19 @@
+/**
+ * Stop once the run reaches a fixed number of generations, or epochs
+ */
+public class GenerationLimitStoppingPolicy implements IStoppingPolicy {
+
+    private final int maxGenerations;
+
+    public GenerationLimitStoppingPolicy(int maxGenerations) {
+        if (maxGenerations < 1) {
+            throw new IllegalArgumentException("A run needs at least one generation!");
+        }
+        this.maxGenerations = maxGenerations;
+    }
+
+    @Override
+    public boolean shouldStop(TrainingProgress progress) {
+        return progress.getGeneration() >= maxGenerations;
+    }
+}
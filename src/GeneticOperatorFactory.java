@@ -0,0 +1,30 @@
+/**
+ * Factory class providing the genetic operators used by the evolutionary trainers.
+ * The vectorized operators are used when the jdk.incubator.vector module is present at runtime, enabled with
+ * --add-modules jdk.incubator.vector, otherwise the scalar operators are used. The choice is made once per JVM.
+ */
+public class GeneticOperatorFactory {
+
+    private static final IGeneticOperators operators = createOperators();
+
+    public static IGeneticOperators getOperators() {
+        return operators;
+    }
+
+    /**
+     * Whether the operators in use run on the Vector API
+     */
+    public static boolean isVectorized() {
+        return operators.getClass() != ScalarGeneticOperators.class;
+    }
+
+    private static IGeneticOperators createOperators() {
+        try {
+            // Only load the vectorized class, by name, once the module is known to be available
+            Class.forName("jdk.incubator.vector.DoubleVector");
+            return (IGeneticOperators) Class.forName("VectorGeneticOperators").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError ex) {
+            return new ScalarGeneticOperators();
+        }
+    }
+}
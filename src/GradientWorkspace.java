@@ -0,0 +1,111 @@
+import java.util.Arrays;
+
+/**
+ * Buffers for computing backpropagation gradients over a flat parameter array laid out as in FlatMultiLayerPerceptron.
+ * The activations and deltas of every layer are kept in primitive arrays owned by the workspace, and the gradient of
+ * every weight and bias is summed into a single array with the same layout as the parameters. A workspace must only be
+ * used by one thread at a time, separate workspaces are combined with add.
+ */
+final class GradientWorkspace {
+
+    final double[] gradients;
+
+    private final int[] dimensions;
+    private final int[] layerOffsets;
+    private final IActivationFunction activationFunction;
+
+    private final double[] inputs;
+    private final double[][] activations;
+    private final double[][] deltas;
+
+    GradientWorkspace(int[] dimensions, int[] layerOffsets, IActivationFunction activationFunction) {
+        this.dimensions = dimensions;
+        this.layerOffsets = layerOffsets;
+        this.activationFunction = activationFunction;
+        this.gradients = new double[layerOffsets[layerOffsets.length - 1]];
+        this.inputs = new double[dimensions[0]];
+        this.activations = new double[dimensions.length - 1][];
+        this.deltas = new double[dimensions.length - 1][];
+        for (int l = 0; l < activations.length; l++) {
+            this.activations[l] = new double[dimensions[l + 1]];
+            this.deltas[l] = new double[dimensions[l + 1]];
+        }
+    }
+
+    /**
+     * Zero the accumulated gradients
+     */
+    void clear() {
+        Arrays.fill(gradients, 0.0);
+    }
+
+    /**
+     * Add the gradients accumulated by another workspace into this one
+     */
+    void add(GradientWorkspace other) {
+        for (int i = 0; i < gradients.length; i++) {
+            gradients[i] += other.gradients[i];
+        }
+    }
+
+    /**
+     * Forward propagate the i-th sample, backpropagate its error and add the resulting weight and bias gradients to
+     * the accumulated totals. The output layer is linear, as in every forward pass, so its derivative is one and its
+     * deltas are the output errors, hidden layer derivatives come from the cached activations.
+     */
+    void accumulate(double[] parameters, Dataset samples, int i) {
+        int lastLayer = dimensions.length - 2;
+
+        // Forward pass, recording the output of every layer
+        samples.copyInputs(i, inputs, 0);
+        double[] layerInputs = inputs;
+        for (int l = 0; l <= lastLayer; l++) {
+            int connections = dimensions[l];
+            double[] layerOutputs = activations[l];
+            int row = layerOffsets[l];
+            for (int j = 0; j < layerOutputs.length; j++, row += connections + 1) {
+                double sum = parameters[row + connections];
+                for (int k = 0; k < connections; k++) {
+                    sum += layerInputs[k] * parameters[row + k];
+                }
+                layerOutputs[j] = l == lastLayer ? sum : activationFunction.compute(sum);
+            }
+            layerInputs = layerOutputs;
+        }
+
+        // Output layer deltas from the true outputs
+        double[] outputs = activations[lastLayer];
+        for (int j = 0; j < outputs.length; j++) {
+            deltas[lastLayer][j] = samples.getOutput(i, j) - outputs[j];
+        }
+
+        // Hidden layer deltas from the deltas of the layer above
+        for (int l = lastLayer - 1; l >= 0; l--) {
+            int stride = dimensions[l + 1] + 1;
+            double[] above = deltas[l + 1];
+            for (int j = 0; j < deltas[l].length; j++) {
+                double error = 0.0;
+                int weight = layerOffsets[l + 1] + j;
+                for (int k = 0; k < above.length; k++, weight += stride) {
+                    error += parameters[weight] * above[k];
+                }
+                deltas[l][j] = error * activationFunction.computeDerivativeFromOutput(activations[l][j]);
+            }
+        }
+
+        // Gradient of every weight is the neuron's delta times the corresponding input, the bias sees an input of one
+        layerInputs = inputs;
+        for (int l = 0; l <= lastLayer; l++) {
+            int connections = dimensions[l];
+            int row = layerOffsets[l];
+            for (int j = 0; j < deltas[l].length; j++, row += connections + 1) {
+                double delta = deltas[l][j];
+                for (int k = 0; k < connections; k++) {
+                    gradients[row + k] += delta * layerInputs[k];
+                }
+                gradients[row + connections] += delta;
+            }
+            layerInputs = activations[l];
+        }
+    }
+}
@@ -0,0 +1,568 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.ObjDoubleConsumer;
+import java.util.random.RandomGenerator;
+
+/**
+ * Parallel search over the tuning parameters of a trainer.
+ * Each dimension of the search sets one parameter of a copy of the base config, either from a list of choices or from
+ * a range sampled uniformly or on a log scale. Configurations are trained as independent trials on a bounded pool, each
+ * with a trainer and network seeded from its trial number, so a search is reproducible whatever order trials finish in.
+ * A fifth of the dataset is held out from every trial and scored once the trial ends, trials are ranked by the best
+ * validation error their trainer saw.
+ *
+ * Poor configurations are stopped early from their per generation validation error. Grid and random search apply the
+ * median stopping rule, a trial that is worse than the median of the trials that reached the same generation before it
+ * is stopped. Successive halving trains every configuration for a small number of generations and keeps only the best
+ * 1/eta of them for each larger budget, Hyperband runs several such brackets trading the number of configurations
+ * against their budget.
+ */
+public class HyperparameterSearch {
+
+    // One sample in HOLDOUT is held out from every trial to score the network it returns
+    private static final int HOLDOUT = 5;
+    // The median rule compares trials from generation MEDIAN_GRACE onward, doubling the interval every time
+    private static final int MEDIAN_GRACE = 10;
+    // Trials that must reach a generation before the median rule stops any trial there
+    private static final int MEDIAN_PEERS = 4;
+    // Random source keys of the trials, the sampled values of each trial and the holdout split
+    private static final long TRIALS = 0;
+    private static final long SAMPLING = 1;
+    private static final long HOLDOUT_SPLIT = 2;
+    // Keys of the trainer and the network within each trial's source
+    private static final long TRAINER = 0;
+    private static final long NETWORK = 1;
+
+    private final NetworkTrainerType trainerType;
+    private final NetworkType networkType;
+    private final TrainerConfig baseConfig;
+    private final int threads;
+    private final RandomSource random;
+    private final List<Dimension> dimensions = new ArrayList<>();
+
+    private int maxGenerations = 0;
+    private boolean medianStopping = true;
+    private int trialsStarted = 0;
+
+    HyperparameterSearch(NetworkTrainerType trainerType, NetworkType networkType, TrainerConfig baseConfig, int threads,
+                         RandomSource random) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("A search needs at least one thread!");
+        }
+        this.trainerType = trainerType;
+        this.networkType = networkType;
+        this.baseConfig = baseConfig.copy();
+        // Trials never write the factory's checkpoints, halving writes its own to resume promoted trials
+        this.baseConfig.setCheckpointInterval(0);
+        this.threads = threads;
+        this.random = random;
+    }
+
+    /**
+     * Search the listed values of a parameter, the only kind of dimension a grid search accepts
+     */
+    public HyperparameterSearch addChoice(String name, ObjDoubleConsumer<TrainerConfig> setter, double... values) {
+        if (values.length == 0) {
+            throw new IllegalArgumentException(name + " needs at least one value!");
+        }
+        dimensions.add(new Dimension(name, setter, values.clone(), 0, 0, false, false));
+        return this;
+    }
+
+    /**
+     * Sample a parameter uniformly from [min, max], or uniformly in its logarithm for rates spanning several magnitudes
+     */
+    public HyperparameterSearch addRange(String name, ObjDoubleConsumer<TrainerConfig> setter, double min, double max,
+                                        boolean logScale) {
+        if (!(min < max) || (logScale && min <= 0)) {
+            throw new IllegalArgumentException("Invalid range for " + name + ": [" + min + ", " + max + "]");
+        }
+        dimensions.add(new Dimension(name, setter, null, min, max, logScale, false));
+        return this;
+    }
+
+    /**
+     * Sample an integer parameter uniformly from [min, max]
+     */
+    public HyperparameterSearch addIntegerRange(String name, ObjDoubleConsumer<TrainerConfig> setter, int min, int max) {
+        if (min > max) {
+            throw new IllegalArgumentException("Invalid range for " + name + ": [" + min + ", " + max + "]");
+        }
+        dimensions.add(new Dimension(name, setter, null, min, max, false, true));
+        return this;
+    }
+
+    /**
+     * Stop grid and random search trials after this many generations, or epochs, zero leaves them to the trainer
+     */
+    public void setMaxGenerations(int maxGenerations) {
+        this.maxGenerations = maxGenerations;
+    }
+
+    /**
+     * Enable the median stopping rule of grid and random search
+     */
+    public void setMedianStopping(boolean medianStopping) {
+        this.medianStopping = medianStopping;
+    }
+
+    /**
+     * Train every combination of the choices of every dimension
+     */
+    public List<Trial> grid(Dataset dataset) {
+        int combinations = 1;
+        for (Dimension dimension : dimensions) {
+            if (dimension.choices == null) {
+                throw new IllegalStateException("Grid search cannot enumerate the range " + dimension.name + "!");
+            }
+            combinations = Math.multiplyExact(combinations, dimension.choices.length);
+        }
+
+        List<double[]> configurations = new ArrayList<>(combinations);
+        for (int n = 0; n < combinations; n++) {
+            // The last dimension varies fastest
+            double[] values = new double[dimensions.size()];
+            int remainder = n;
+            for (int d = dimensions.size() - 1; d >= 0; d--) {
+                double[] choices = dimensions.get(d).choices;
+                values[d] = choices[remainder % choices.length];
+                remainder /= choices.length;
+            }
+            configurations.add(values);
+        }
+        return runAll(dataset, configurations, maxGenerations, medianStopping ? new MedianRule() : null);
+    }
+
+    /**
+     * Train the specified number of configurations sampled at random from the dimensions
+     */
+    public List<Trial> random(Dataset dataset, int trials) {
+        return runAll(dataset, sample(trials), maxGenerations, medianStopping ? new MedianRule() : null);
+    }
+
+    /**
+     * Train the sampled configurations for minGenerations, then repeatedly keep the best 1/eta of them and multiply
+     * their budget by eta until a single configuration is left or the budget would exceed maxGenerations.
+     * A promoted configuration resumes from the checkpoint written at the end of its last budget, only trainers that
+     * write no checkpoints, backpropagation, are trained again from the start.
+     * Returns a trial for every configuration at every budget it was trained with.
+     */
+    public List<Trial> successiveHalving(Dataset dataset, int configurations, int minGenerations, int maxGenerations,
+                                         int eta) {
+        if (minGenerations < 1 || maxGenerations < minGenerations || eta < 2) {
+            throw new IllegalArgumentException("Successive halving needs 1 <= min <= max generations and eta >= 2!");
+        }
+        return halve(dataset, sample(configurations), minGenerations, maxGenerations, eta);
+    }
+
+    /**
+     * Run successive halving brackets from many configurations with a budget of minGenerations down to a few
+     * configurations trained for maxGenerations, so both aggressive and cautious early stopping are tried
+     */
+    public List<Trial> hyperband(Dataset dataset, int minGenerations, int maxGenerations, int eta) {
+        if (minGenerations < 1 || maxGenerations < minGenerations || eta < 2) {
+            throw new IllegalArgumentException("Hyperband needs 1 <= min <= max generations and eta >= 2!");
+        }
+        // Budgets are counted in units of minGenerations, R of them make up the largest budget
+        double units = (double) maxGenerations / minGenerations;
+        int brackets = (int) Math.floor(Math.log(units) / Math.log(eta) + 1e-9);
+
+        List<Trial> results = new ArrayList<>();
+        for (int s = brackets; s >= 0; s--) {
+            int configurations = (int) Math.ceil((brackets + 1.0) / (s + 1) * Math.pow(eta, s));
+            int budget = Math.max(minGenerations, (int) Math.round(maxGenerations / Math.pow(eta, s)));
+            results.addAll(halve(dataset, sample(configurations), budget, maxGenerations, eta));
+        }
+        return results;
+    }
+
+    private List<Trial> halve(Dataset dataset, List<double[]> configurations, int minGenerations, int maxGenerations,
+                              int eta) {
+        Path checkpoints;
+        try {
+            checkpoints = Files.createTempDirectory("search");
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Unable to create a directory for trial checkpoints", ex);
+        }
+        try {
+            return halve(dataset, configurations, minGenerations, maxGenerations, eta, checkpoints);
+        } finally {
+            deleteCheckpoints(checkpoints);
+        }
+    }
+
+    /**
+     * Successive halving with each trial checkpointed to a file of its own in the directory once it reaches its
+     * budget. Trials keep their id for every rung, so a promoted trial resumes the checkpoint of its last rung and a
+     * larger budget continues the same trajectory instead of repeating the generations already trained.
+     */
+    private List<Trial> halve(Dataset dataset, List<double[]> configurations, int minGenerations, int maxGenerations,
+                              int eta, Path checkpoints) {
+        List<Trial> results = new ArrayList<>();
+        int firstTrial = reserveTrials(configurations.size());
+        List<Integer> ids = new ArrayList<>(configurations.size());
+        for (int i = 0; i < configurations.size(); i++) {
+            ids.add(firstTrial + i);
+        }
+
+        List<Trial> rung = new ArrayList<>();
+        List<Trial> previous = new ArrayList<>();
+        for (int budget = minGenerations; ; budget = (int) Math.min((long) budget * eta, maxGenerations)) {
+            List<Trial> pending = new ArrayList<>();
+            rung.clear();
+            for (int i = 0; i < ids.size(); i++) {
+                Trial earlier = previous.isEmpty() ? null : previous.get(i);
+                // A trial that stopped on its own before the last budget would only repeat itself
+                if (earlier != null && earlier.status == Status.Converged) {
+                    rung.add(earlier);
+                } else {
+                    Trial trial = new Trial(ids.get(i), configurations.get(i), budget);
+                    trial.previous = earlier;
+                    trial.checkpoint = checkpoints.resolve(ids.get(i) + ".ckpt");
+                    pending.add(trial);
+                    rung.add(trial);
+                }
+            }
+            execute(dataset, pending, null);
+            results.addAll(pending);
+
+            int keep = ids.size() / eta;
+            if (keep < 1 || budget >= maxGenerations) {
+                break;
+            }
+            List<Integer> order = new ArrayList<>(ids.size());
+            for (int i = 0; i < ids.size(); i++) {
+                order.add(i);
+            }
+            order.sort(Comparator.comparingDouble(i -> rung.get(i).validationError));
+
+            List<Integer> survivors = new ArrayList<>(keep);
+            List<double[]> survivingConfigurations = new ArrayList<>(keep);
+            previous = new ArrayList<>(keep);
+            for (int i : order.subList(0, keep)) {
+                survivors.add(ids.get(i));
+                survivingConfigurations.add(configurations.get(i));
+                previous.add(rung.get(i));
+            }
+            ids = survivors;
+            configurations = survivingConfigurations;
+        }
+        return results;
+    }
+
+    private static void deleteCheckpoints(Path directory) {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+            Files.deleteIfExists(directory);
+        } catch (IOException ex) {
+            System.err.println("Unable to delete trial checkpoints in " + directory + ": " + ex);
+        }
+    }
+
+    private List<Trial> runAll(Dataset dataset, List<double[]> configurations, int budget, MedianRule rule) {
+        int firstTrial = reserveTrials(configurations.size());
+        List<Trial> trials = new ArrayList<>(configurations.size());
+        for (int i = 0; i < configurations.size(); i++) {
+            trials.add(new Trial(firstTrial + i, configurations.get(i), budget));
+        }
+        execute(dataset, trials, rule);
+        return trials;
+    }
+
+    private synchronized int reserveTrials(int count) {
+        int first = trialsStarted;
+        trialsStarted += count;
+        return first;
+    }
+
+    private List<double[]> sample(int count) {
+        int firstSample = trialsStarted;
+        List<double[]> configurations = new ArrayList<>(count);
+        for (int n = 0; n < count; n++) {
+            RandomGenerator generator = random.split(SAMPLING).generator(firstSample + n);
+            double[] values = new double[dimensions.size()];
+            for (int d = 0; d < values.length; d++) {
+                values[d] = dimensions.get(d).sample(generator);
+            }
+            configurations.add(values);
+        }
+        return configurations;
+    }
+
+    /**
+     * Train the trials concurrently, holding the same fifth of the dataset out of all of them
+     */
+    private void execute(Dataset dataset, List<Trial> trials, MedianRule rule) {
+        Dataset shuffled = dataset.subList(0, dataset.size());
+        shuffled.shuffle(random.generator(HOLDOUT_SPLIT));
+        int holdoutSize = dataset.size() / HOLDOUT;
+        Dataset holdout = shuffled.subList(0, holdoutSize);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> jobs = new ArrayList<>(trials.size());
+        try {
+            for (Trial trial : trials) {
+                // Training shuffles the view it is given, so every trial works on a view of its own
+                Dataset training = shuffled.subList(holdoutSize, shuffled.size());
+                jobs.add(executor.submit(() -> train(trial, training, holdout, rule)));
+            }
+            for (Future<?> job : jobs) {
+                job.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Hyperparameter search was interrupted", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Hyperparameter search trial failed", ex.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void train(Trial trial, Dataset training, Dataset holdout, MedianRule rule) {
+        TrainerConfig config = baseConfig.copy();
+        for (int d = 0; d < dimensions.size(); d++) {
+            dimensions.get(d).setter.accept(config, trial.values[d]);
+        }
+
+        RandomSource trialRandom = random.split(TRIALS).split(trial.id);
+        NetworkTrainerBase trainer = (NetworkTrainerBase) NetworkFactory.buildNetworkTrainer(trainerType, config);
+        trainer.setRandomSource(trialRandom.split(TRAINER));
+        // Trials report through the results table rather than the shared telemetry
+        trainer.setTelemetry(null);
+        trainer.setListener((generation, bestError) -> {
+            trial.generations = generation;
+            trial.validationError = Math.min(trial.validationError, bestError);
+            if (trial.budget > 0 && generation >= trial.budget) {
+                trial.status = Status.Budget;
+                return false;
+            }
+            if (rule != null && rule.shouldStop(trial, generation)) {
+                trial.status = Status.Stopped;
+                return false;
+            }
+            return true;
+        });
+
+        // A checkpoint is written once the trial reaches its budget, which a promoted trial resumes from
+        boolean resuming = trial.previous != null && Files.exists(trial.checkpoint);
+        if (trial.checkpoint != null) {
+            trainer.setCheckpoints(trial.checkpoint, trial.budget - (resuming ? trial.previous.generations : 0));
+        }
+
+        long start = System.nanoTime();
+        INeuralNetwork network = NetworkFactory.buildNewNetwork(networkType, config, trialRandom.generator(NETWORK));
+        if (resuming) {
+            trial.validationError = trial.previous.validationError;
+            network = trainer.resume(network, training, trial.checkpoint);
+        } else {
+            network = trainer.train(network, training);
+        }
+        trial.seconds = (System.nanoTime() - start) / 1e9 + (resuming ? trial.previous.seconds : 0);
+
+        double[] outputs = network.executeBatch(holdout, null);
+        double error = 0.0;
+        for (int i = 0; i < holdout.size(); i++) {
+            error += FitnessEvaluator.meanSquaredError(outputs, i * holdout.getClasses(), holdout, i);
+        }
+        trial.holdoutError = error / holdout.size();
+    }
+
+    /**
+     * Write one row per trial, most promising first, with the value of every dimension and how the trial ended
+     */
+    public void writeResults(List<Trial> trials, Path path) {
+        List<Trial> sorted = new ArrayList<>(trials);
+        sorted.sort(Comparator.comparingDouble(Trial::getValidationError));
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writer.write("trainer,trial,budget");
+            for (Dimension dimension : dimensions) {
+                writer.write(',');
+                writer.write(dimension.name);
+            }
+            writer.write(",status,generations,validationError,holdoutError,seconds\n");
+            for (Trial trial : sorted) {
+                writer.write(trainerType.name() + ',' + trial.id + ',' + trial.budget);
+                for (int d = 0; d < dimensions.size(); d++) {
+                    writer.write(',');
+                    writer.write(dimensions.get(d).format(trial.values[d]));
+                }
+                writer.write(String.format(Locale.ROOT, ",%s,%d,%.9g,%.9g,%.3f%n", trial.status, trial.generations,
+                        trial.validationError, trial.holdoutError, trial.seconds));
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Unable to write search results to " + path, ex);
+        }
+    }
+
+    /**
+     * Describe a trial's configuration as name=value pairs
+     */
+    public String describe(Trial trial) {
+        StringBuilder output = new StringBuilder();
+        for (int d = 0; d < dimensions.size(); d++) {
+            output.append(d == 0 ? "" : ", ");
+            output.append(dimensions.get(d).name);
+            output.append('=');
+            output.append(dimensions.get(d).format(trial.values[d]));
+        }
+        return output.toString();
+    }
+
+    /**
+     * How a trial's training ended
+     */
+    public enum Status {
+        Converged,  // The trainer's own stopping criteria ended the run
+        Budget,     // The run reached its generation budget
+        Stopped     // The median rule stopped the run early
+    }
+
+    /**
+     * Outcome of training one configuration with one budget. Fields are written by the trial's training thread and
+     * read once the search has waited for it.
+     */
+    public static final class Trial {
+        private final int id;
+        private final double[] values;
+        private final int budget;
+        private Status status = Status.Converged;
+        private int generations;
+        private double validationError = Double.MAX_VALUE;
+        private double holdoutError = Double.NaN;
+        private double seconds;
+        // Trial of the same configuration at the last budget of successive halving and the checkpoint it resumes from
+        private Trial previous;
+        private Path checkpoint;
+
+        private Trial(int id, double[] values, int budget) {
+            this.id = id;
+            this.values = values;
+            this.budget = budget;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public double[] getValues() {
+            return values.clone();
+        }
+
+        public int getBudget() {
+            return budget;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public int getGenerations() {
+            return generations;
+        }
+
+        public double getValidationError() {
+            return validationError;
+        }
+
+        public double getHoldoutError() {
+            return holdoutError;
+        }
+
+        public double getSeconds() {
+            return seconds;
+        }
+    }
+
+    private static final class Dimension {
+        private final String name;
+        private final ObjDoubleConsumer<TrainerConfig> setter;
+        // Values of a choice, null for a range
+        private final double[] choices;
+        private final double min;
+        private final double max;
+        private final boolean logScale;
+        private final boolean integer;
+
+        private Dimension(String name, ObjDoubleConsumer<TrainerConfig> setter, double[] choices, double min,
+                          double max, boolean logScale, boolean integer) {
+            this.name = name;
+            this.setter = setter;
+            this.choices = choices;
+            this.min = min;
+            this.max = max;
+            this.logScale = logScale;
+            this.integer = integer;
+        }
+
+        private double sample(RandomGenerator random) {
+            if (choices != null) {
+                return choices[random.nextInt(choices.length)];
+            } else if (integer) {
+                return random.nextInt((int) min, (int) max + 1);
+            } else if (logScale) {
+                return Math.exp(random.nextDouble(Math.log(min), Math.log(max)));
+            }
+            return random.nextDouble(min, max);
+        }
+
+        private String format(double value) {
+            return new BigDecimal(value).round(new MathContext(6)).stripTrailingZeros().toPlainString();
+        }
+    }
+
+    /**
+     * Median stopping rule. Every trial reports its best validation error so far when it passes each checkpoint
+     * generation, and is stopped there if it is worse than the median reported by the trials that passed it first.
+     */
+    private static final class MedianRule {
+        private final Map<Integer, List<Double>> reports = new HashMap<>();
+        private final Map<Integer, Integer> nextCheckpoint = new HashMap<>();
+
+        private synchronized boolean shouldStop(Trial trial, int generation) {
+            int checkpoint = nextCheckpoint.getOrDefault(trial.id, MEDIAN_GRACE);
+            if (generation < checkpoint) {
+                return false;
+            }
+            // Island runs validate every migration interval, so a checkpoint may be passed rather than reached
+            while (checkpoint <= generation) {
+                checkpoint *= 2;
+            }
+            nextCheckpoint.put(trial.id, checkpoint);
+            int reached = Integer.highestOneBit(generation / MEDIAN_GRACE) * MEDIAN_GRACE;
+
+            List<Double> peers = reports.computeIfAbsent(reached, key -> new ArrayList<>());
+            boolean stop = false;
+            if (peers.size() >= MEDIAN_PEERS) {
+                List<Double> sorted = new ArrayList<>(peers);
+                sorted.sort(null);
+                int middle = sorted.size() / 2;
+                double median = sorted.size() % 2 == 1
+                        ? sorted.get(middle)
+                        : (sorted.get(middle - 1) + sorted.get(middle)) / 2;
+                stop = trial.validationError > median;
+            }
+            peers.add(trial.validationError);
+            return stop;
+        }
+    }
+}
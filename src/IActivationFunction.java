@@ -5,4 +5,13 @@
 public interface IActivationFunction {
     double compute(double value);
     double computeDerivative(double value);
+
+    /**
+     * Derivative given the value the function produced, as backpropagation holds each neuron's cached activation
+     * rather than its weighted input. Every implementation is the scaled hyperbolic tangent (tanh(x) + 1) / 2, whose
+     * derivative is 2y(1 - y) in terms of its value y, so an approximation takes its derivative from its own output.
+     */
+    default double computeDerivativeFromOutput(double output) {
+        return 2 * output * (1 - output);
+    }
 }
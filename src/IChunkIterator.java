@@ -0,0 +1,10 @@
+import java.util.Iterator;
+
+/**
+ * One pass over the chunks of a dataset source. A pass that is abandoned before its last chunk must be closed to
+ * release the file it reads, so callers hold it in a try-with-resources statement.
+ */
+public interface IChunkIterator extends Iterator<Dataset>, AutoCloseable {
+    @Override
+    void close();
+}
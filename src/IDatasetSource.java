@@ -0,0 +1,7 @@
+/**
+ * Source of training samples that is read one chunk at a time, allowing trainers to work over data that does not fit in
+ * memory. Every call to chunks starts a new pass over the data, which is closed once the caller is done with it.
+ */
+public interface IDatasetSource {
+    IChunkIterator chunks();
+}
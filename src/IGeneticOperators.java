@@ -0,0 +1,20 @@
+import java.util.random.RandomGenerator;
+
+/**
+ * Genetic operators applied by the evolutionary trainers to primitive gene arrays.
+ * Implementations are stateless apart from per-thread scratch buffers, so a single instance is shared by every thread.
+ */
+public interface IGeneticOperators {
+
+    // Fill the child with genes each taken from a randomly chosen parent
+    void uniformCrossover(double[][] parents, double[] child, RandomGenerator random);
+
+    // Add N(0, step) noise to each of the first length genes with probability rate. The step is scale times the gene's
+    // sigma, stored sigmaOffset genes later, or scale alone when sigmaOffset is negative
+    void gaussianMutation(double[] genes, int length, double rate, double scale, int sigmaOffset,
+                          RandomGenerator random);
+
+    // Set each gene of the child to a + beta * (b - c) with probability crossoverRate, otherwise to the gene of a
+    void differentialCrossover(double[] a, double[] b, double[] c, double beta, double crossoverRate, double[] child,
+                               RandomGenerator random);
+}
@@ -1,3 +1,7 @@
+import java.nio.file.Path;
+
 public interface INetworkTrainer {
     INeuralNetwork train(INeuralNetwork network, Dataset samples);
+    INeuralNetwork train(INeuralNetwork network, IDatasetSource trainingSet, Dataset validationSet);
+    INeuralNetwork resume(INeuralNetwork network, Dataset samples, Path checkpoint);
 }
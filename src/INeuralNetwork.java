@@ -1,10 +1,12 @@
 
 public interface INeuralNetwork {
     double[] execute(double[] inputs);
+    double[] executeBatch(Dataset samples, double[] outputs);
     Layer getLayer(int index);
     int getSize();
     double getConvergence();
     void setConvergence(double convergenceTime);
     WeightMatrix constructWeightMatrix();
     double computeActivationDerivative(double input);
+    IActivationFunction getActivationFunction();
 }
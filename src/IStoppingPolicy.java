@@ -0,0 +1,23 @@
+/**
+ * Decides when a training run is done. A policy is consulted once every generation, or epoch, has been validated and
+ * the best network snapshot taken, so a run that stops returns the best network it saw.
+ * Policies that keep state between generations expose it so checkpoints can save it, a resumed run then stops exactly
+ * when the original would have. Every trainer needs a policy instance of its own.
+ */
+public interface IStoppingPolicy {
+
+    /**
+     * Forget the state of the previous run
+     */
+    default void reset() {
+    }
+
+    boolean shouldStop(TrainingProgress progress);
+
+    default double[] getState() {
+        return new double[0];
+    }
+
+    default void setState(double[] state) {
+    }
+}
@@ -0,0 +1,16 @@
+import java.io.IOException;
+
+/**
+ * Destination for training records. Sinks are only ever called from the telemetry writer thread.
+ */
+public interface ITelemetrySink {
+
+    // Write one record, the record is reused once this returns
+    void write(TrainingRecord record) throws IOException;
+
+    // Push buffered records to their destination, called whenever the ring buffer has been drained
+    void flush() throws IOException;
+
+    // Flush and release the destination
+    void close() throws IOException;
+}
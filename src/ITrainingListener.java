@@ -0,0 +1,7 @@
+/**
+ * Observes a training run as it progresses. Called on the training thread once every generation, or epoch, has been
+ * validated, returning false stops the run at that point with the best network seen so far.
+ */
+public interface ITrainingListener {
+    boolean onGeneration(int generation, double bestError);
+}
@@ -0,0 +1,55 @@
+/**
+ * Stop once the best validation error has improved by less than a fraction of itself over the last window
+ * validations. The best error of each of the last window validations is kept in a ring buffer, island runs validate
+ * once per migration interval so there a validation spans several generations.
+ */
+public class ImprovementWindowStoppingPolicy implements IStoppingPolicy {
+
+    private final int window;
+    private final double minImprovement;
+    // Best error at each of the last window validations, oldest at position count % window once full
+    private final double[] history;
+    private int count;
+
+    public ImprovementWindowStoppingPolicy(int window, double minImprovement) {
+        if (window < 1 || minImprovement < 0) {
+            throw new IllegalArgumentException("The window must be positive and the improvement non-negative!");
+        }
+        this.window = window;
+        this.minImprovement = minImprovement;
+        this.history = new double[window];
+    }
+
+    @Override
+    public void reset() {
+        count = 0;
+    }
+
+    @Override
+    public boolean shouldStop(TrainingProgress progress) {
+        double best = progress.getBestError();
+        int slot = count % window;
+        double previous = history[slot];
+        history[slot] = best;
+        count++;
+        // Compare against the best error window validations ago, the run is young until the buffer has filled
+        return count > window && (previous - best) < minImprovement * previous;
+    }
+
+    @Override
+    public double[] getState() {
+        double[] state = new double[window + 1];
+        state[0] = count;
+        System.arraycopy(history, 0, state, 1, window);
+        return state;
+    }
+
+    @Override
+    public void setState(double[] state) {
+        if (state.length != window + 1) {
+            throw new IllegalArgumentException("Expected the state of a window of " + window + " validations!");
+        }
+        count = (int) state[0];
+        System.arraycopy(state, 1, history, 0, window);
+    }
+}
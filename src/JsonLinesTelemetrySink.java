@@ -0,0 +1,54 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes each training record as a JSON object on its own line
+ */
+public class JsonLinesTelemetrySink implements ITelemetrySink {
+
+    private final Writer writer;
+    private final StringBuilder line = new StringBuilder(256);
+
+    public JsonLinesTelemetrySink(Path path) throws IOException {
+        this(Files.newBufferedWriter(path, StandardCharsets.UTF_8));
+    }
+
+    public JsonLinesTelemetrySink(Writer writer) {
+        this.writer = writer instanceof BufferedWriter ? writer : new BufferedWriter(writer);
+    }
+
+    @Override
+    public void write(TrainingRecord record) throws IOException {
+        line.setLength(0);
+        line.append("{\"trainer\":\"").append(record.getTrainer())
+                .append("\",\"run\":").append(record.getRun())
+                .append(",\"generation\":").append(record.getGeneration())
+                .append(",\"bestError\":").append(number(record.getBestError()))
+                .append(",\"meanError\":").append(number(record.getMeanError()))
+                .append(",\"evaluationMs\":").append(record.getEvaluationNanos() / 1e6)
+                .append(",\"reproductionMs\":").append(record.getReproductionNanos() / 1e6)
+                .append(",\"evaluations\":").append(record.getEvaluations())
+                .append(",\"evaluationsPerSecond\":").append(number(record.getEvaluationsPerSecond()))
+                .append("}\n");
+        writer.append(line);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    // JSON has no literal for NaN or infinity
+    private static String number(double value) {
+        return Double.isFinite(value) ? Double.toString(value) : "null";
+    }
+}
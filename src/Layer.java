@@ -1,5 +1,7 @@
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 import java.util.stream.IntStream;
 
 /**
@@ -13,16 +15,31 @@ public class Layer {
     private final int connections;
 
     public Layer(int size, int connections, IActivationFunction activationFunction) {
+        this(size, connections, activationFunction, ThreadLocalRandom.current());
+    }
+
+    // Build a layer whose neurons draw their initial weights from the supplied generator
+    public Layer(int size, int connections, IActivationFunction activationFunction, RandomGenerator random) {
         this.size = size;
         this.connections = connections;
-        this.initializeNeurons(connections, activationFunction);
+        this.initializeNeurons(connections, activationFunction, random);
+    }
+
+    // Build a layer whose neurons are bound to consecutive [weights..., bias] rows of the supplied array
+    Layer(int size, int connections, IActivationFunction activationFunction, double[] parameters, int offset) {
+        this.size = size;
+        this.connections = connections;
+        this.neurons = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            this.neurons.add(new Neuron(connections, activationFunction, parameters, offset + i * (connections + 1)));
+        }
     }
 
     // Add the specified number of neurons to the layer
-    private void initializeNeurons(int connections, IActivationFunction activationFunction) {
+    private void initializeNeurons(int connections, IActivationFunction activationFunction, RandomGenerator random) {
         this.neurons = new ArrayList<>(size);
         for (int i = 0; i < size; i++) {
-            this.neurons.add(new Neuron(connections, activationFunction));
+            this.neurons.add(new Neuron(connections, activationFunction, random));
         }
     }
 
@@ -0,0 +1,138 @@
+import java.nio.DoubleBuffer;
+
+/**
+ * Read only multilayer perceptron that executes directly on parameters held in a buffer, typically a memory mapped
+ * model file, so a trained network is ready as soon as the file is mapped and nothing is copied onto the heap.
+ * Parameters use the layout of FlatMultiLayerPerceptron and the forward pass accumulates in the same order, so outputs
+ * are identical to the network the model was written from. Scratch buffers are per thread, execute may be called
+ * concurrently. The network has no Layer or Neuron views, load the model instead to train it further.
+ */
+public class MappedNetwork implements INeuralNetwork {
+
+    private final IActivationFunction activationFunction;
+    private final int[] dimensions;
+    private final int[] layerOffsets;
+    private final DoubleBuffer parameters;
+
+    // Hidden layer activations and one row of inputs, one set per thread
+    private final ThreadLocal<double[][]> buffers;
+    private final ThreadLocal<double[]> inputBuffers;
+
+    private double convergenceTime;
+
+    MappedNetwork(IActivationFunction activationFunction, int[] dimensions, DoubleBuffer parameters) {
+        this.activationFunction = activationFunction;
+        this.dimensions = dimensions.clone();
+        this.layerOffsets = FlatMultiLayerPerceptron.computeLayerOffsets(this.dimensions);
+        if (parameters.limit() < layerOffsets[layerOffsets.length - 1]) {
+            throw new IllegalArgumentException("Parameter buffer is too small for the network!");
+        }
+        this.parameters = parameters;
+        this.buffers = ThreadLocal.withInitial(() -> FlatMultiLayerPerceptron.createBuffers(this.dimensions));
+        this.inputBuffers = ThreadLocal.withInitial(() -> new double[this.dimensions[0]]);
+    }
+
+    @Override
+    public double[] execute(double[] inputs) {
+        return execute(inputs, new double[dimensions[dimensions.length - 1]]);
+    }
+
+    /**
+     * Execute a forward propagation, writing the network outputs into the supplied array rather than allocating one
+     */
+    public double[] execute(double[] inputs, double[] outputs) {
+        if (inputs.length != dimensions[0]) {
+            throw new IllegalArgumentException("Input/Network size mismatch!");
+        }
+        forward(inputs, buffers.get(), outputs, 0);
+        return outputs;
+    }
+
+    /**
+     * Execute a forward propagation for every sample in the dataset, writing the outputs row by row into the supplied
+     * buffer. A new buffer is only allocated when the one supplied is missing or too small.
+     */
+    @Override
+    public double[] executeBatch(Dataset samples, double[] outputs) {
+        outputs = BatchKernel.ensureCapacity(outputs, samples.size(), dimensions);
+        int outputSize = dimensions[dimensions.length - 1];
+        double[] inputs = inputBuffers.get();
+        double[][] scratch = buffers.get();
+        for (int i = 0; i < samples.size(); i++) {
+            samples.copyInputs(i, inputs, 0);
+            forward(inputs, scratch, outputs, i * outputSize);
+        }
+        return outputs;
+    }
+
+    /**
+     * Forward pass reading every weight from the buffer, the output layer is linear
+     */
+    private void forward(double[] inputs, double[][] scratch, double[] outputs, int outputOffset) {
+        int lastLayer = dimensions.length - 2;
+        double[] layerInputs = inputs;
+
+        for (int l = 0; l <= lastLayer; l++) {
+            int connections = dimensions[l];
+            int size = dimensions[l + 1];
+            double[] layerOutputs = l == lastLayer ? outputs : scratch[l];
+            int offset = l == lastLayer ? outputOffset : 0;
+
+            int row = layerOffsets[l];
+            for (int j = 0; j < size; j++, row += connections + 1) {
+                double sum = parameters.get(row + connections);
+                for (int k = 0; k < connections; k++) {
+                    sum += layerInputs[k] * parameters.get(row + k);
+                }
+                layerOutputs[offset + j] = l == lastLayer ? sum : activationFunction.compute(sum);
+            }
+            layerInputs = layerOutputs;
+        }
+    }
+
+    public int[] getDimensions() {
+        return dimensions.clone();
+    }
+
+    /**
+     * The mapped parameters, read only
+     */
+    public DoubleBuffer getParameters() {
+        return parameters.duplicate();
+    }
+
+    @Override
+    public Layer getLayer(int index) {
+        throw new UnsupportedOperationException("A mapped network is read only, load the model to access its layers!");
+    }
+
+    @Override
+    public int getSize() {
+        return dimensions.length - 1;
+    }
+
+    @Override
+    public double getConvergence() {
+        return this.convergenceTime;
+    }
+
+    @Override
+    public void setConvergence(double convergenceTime) {
+        this.convergenceTime = convergenceTime;
+    }
+
+    @Override
+    public WeightMatrix constructWeightMatrix() {
+        throw new UnsupportedOperationException("A mapped network is read only, load the model to evolve it!");
+    }
+
+    @Override
+    public double computeActivationDerivative(double input) {
+        return this.activationFunction.computeDerivative(input);
+    }
+
+    @Override
+    public IActivationFunction getActivationFunction() {
+        return this.activationFunction;
+    }
+}
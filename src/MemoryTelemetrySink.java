@@ -0,0 +1,30 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps a copy of every training record in memory, for inspecting a run from code
+ */
+public class MemoryTelemetrySink implements ITelemetrySink {
+
+    private final List<TrainingRecord> records = new ArrayList<>();
+
+    @Override
+    public synchronized void write(TrainingRecord record) {
+        records.add(record.copy());
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+
+    /**
+     * Snapshot of the records written so far
+     */
+    public synchronized List<TrainingRecord> getRecords() {
+        return new ArrayList<>(records);
+    }
+}
@@ -0,0 +1,7 @@
+/**
+ * Connection pattern used to exchange individuals between islands in the island model
+ */
+public enum MigrationTopology {
+    Ring,            // Each island sends its best individuals to the next island
+    FullyConnected   // Each island receives the best individuals sent by all other islands
+}
@@ -0,0 +1,125 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Rotating mini-batches of a training set for subsampled fitness evaluation, every individual scored in a generation
+ * is scored on the same batch so comparisons within a generation stay fair.
+ * An in memory dataset is cut into consecutive batches of a shuffled view, and once every batch has been used the view
+ * is shuffled again. The order of each pass is drawn from the pass number alone, so the batch of a generation never
+ * depends on the generations before it and a resumed run sees the same batches.
+ * A streamed source is read onward a batch at a time and each batch copied out of its chunk, starting over at the end
+ * of the data. Recent batches are kept so islands evolving the same generations on separate threads share them.
+ * Closing the sampler releases the pass over a streamed source that is still being read.
+ */
+public class MiniBatchSampler implements AutoCloseable {
+
+    // Batches of a streamed source kept for islands that are behind
+    private static final int RETAINED_BATCHES = 64;
+
+    private final IDatasetSource source;
+    private final int batchSize;
+    private final RandomSource random;
+
+    // In memory datasets
+    private Dataset pass;
+    private int passNumber = -1;
+
+    // Streamed sources
+    private final Map<Integer, Dataset> batches = new LinkedHashMap<Integer, Dataset>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Dataset> eldest) {
+            return size() > RETAINED_BATCHES;
+        }
+    };
+    private IChunkIterator chunks;
+    private Dataset chunk;
+    private int chunkOffset;
+    private int nextGeneration;
+
+    MiniBatchSampler(IDatasetSource source, int batchSize, RandomSource random) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("A mini-batch needs at least one sample!");
+        }
+        this.source = source;
+        this.batchSize = batchSize;
+        this.random = random;
+    }
+
+    /**
+     * The samples every individual is scored on in the given generation
+     */
+    public synchronized Dataset batch(int generation) {
+        if (source instanceof Dataset) {
+            Dataset samples = (Dataset) source;
+            int count = (samples.size() + batchSize - 1) / batchSize;
+            if (count <= 1) {
+                return samples;
+            }
+            int number = generation / count;
+            if (number != passNumber) {
+                pass = samples.subList(0, samples.size());
+                pass.shuffle(random.generator(number));
+                passNumber = number;
+            }
+            int start = (generation % count) * batchSize;
+            return pass.subList(start, Math.min(pass.size(), start + batchSize));
+        }
+
+        Dataset batch = batches.get(generation);
+        if (batch == null) {
+            // Generations are only ever requested in order, or again while still retained
+            if (generation != nextGeneration) {
+                throw new IllegalStateException("Mini-batch of generation " + generation + " is no longer available!");
+            }
+            batch = readBatch();
+            batches.put(generation, batch);
+            nextGeneration++;
+        }
+        return batch;
+    }
+
+    /**
+     * Copy the next batchSize samples of the stream, which may span chunks, into a batch of its own
+     */
+    private Dataset readBatch() {
+        double[] inputs = null;
+        double[] outputs = null;
+        int rows = 0;
+        int features = 0;
+        int classes = 0;
+        while (rows < batchSize) {
+            if (chunk == null || chunkOffset == chunk.size()) {
+                if (chunks == null || !chunks.hasNext()) {
+                    close();
+                    chunks = source.chunks();
+                    if (!chunks.hasNext()) {
+                        throw new IllegalStateException("Cannot sample a training set without samples!");
+                    }
+                }
+                chunk = chunks.next();
+                chunkOffset = 0;
+            }
+            if (inputs == null) {
+                features = chunk.getFeatures();
+                classes = chunk.getClasses();
+                inputs = new double[batchSize * features];
+                outputs = new double[batchSize * classes];
+            }
+            for (; chunkOffset < chunk.size() && rows < batchSize; chunkOffset++, rows++) {
+                chunk.copyInputs(chunkOffset, inputs, rows * features);
+                for (int j = 0; j < classes; j++) {
+                    outputs[rows * classes + j] = chunk.getOutput(chunkOffset, j);
+                }
+            }
+        }
+        return new Dataset(features, classes, inputs, outputs);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (chunks != null) {
+            chunks.close();
+            chunks = null;
+        }
+    }
+}
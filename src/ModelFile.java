@@ -0,0 +1,170 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary format for trained multilayer perceptrons.
+ * The layout is little endian throughout: int magic, int version, int activation function id, int layer count, the
+ * size of every layer starting with the input layer, padding to a multiple of eight bytes, then every weight and bias
+ * as doubles in the layout of FlatMultiLayerPerceptron, one [w0 .. wn-1, bias] row per neuron with the layers back to
+ * back. A model can be loaded into a trainable network or memory mapped and executed in place.
+ */
+public final class ModelFile {
+
+    private static final int MAGIC = 0x4E4E4D44;
+    private static final int VERSION = 1;
+
+    // Activation function ids, never reuse an id once models have been written with it
+    private static final int HYPERBOLIC_TANGENT = 1;
+    private static final int LOOKUP_TABLE_TANGENT = 2;
+    private static final int RATIONAL_TANGENT = 3;
+
+    private ModelFile() {
+    }
+
+    /**
+     * Write the dimensions, activation function and parameters of a network, going through a temporary file so a
+     * partial model is never left behind
+     */
+    public static void write(INeuralNetwork network, Path path) {
+        int[] dimensions = FlatMultiLayerPerceptron.getDimensions(network);
+        int[] layerOffsets = FlatMultiLayerPerceptron.computeLayerOffsets(dimensions);
+        double[] parameters = FlatMultiLayerPerceptron.packParameters(network, new double[layerOffsets[layerOffsets.length - 1]]);
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(headerBytes(dimensions.length) + 8 * parameters.length)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(activationId(network.getActivationFunction()))
+                    .putInt(dimensions.length);
+            for (int dimension : dimensions) {
+                buffer.putInt(dimension);
+            }
+            buffer.position(headerBytes(dimensions.length));
+            buffer.asDoubleBuffer().put(parameters);
+            buffer.rewind();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Unable to write " + path, ex);
+        }
+
+        try {
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Unable to write " + path, ex);
+        }
+    }
+
+    /**
+     * Memory map a model, the returned network reads its parameters straight from the mapping
+     */
+    public static MappedNetwork map(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, header, path);
+            if (header.getInt() != MAGIC) {
+                throw new IllegalArgumentException(path + " is not a model file!");
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IllegalArgumentException(path + " is model version " + version + ", expected " + VERSION);
+            }
+            IActivationFunction activationFunction = activationFunction(header.getInt());
+            int layers = header.getInt();
+            if (layers < 2 || layers > 1024) {
+                throw new IllegalArgumentException(path + " has an invalid layer count: " + layers);
+            }
+
+            ByteBuffer sizes = ByteBuffer.allocate(4 * layers).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, sizes, path);
+            int[] dimensions = new int[layers];
+            for (int i = 0; i < layers; i++) {
+                dimensions[i] = sizes.getInt();
+                if (dimensions[i] < 1) {
+                    throw new IllegalArgumentException(path + " has an empty layer!");
+                }
+            }
+
+            long parameterCount = 0;
+            for (int i = 1; i < layers; i++) {
+                parameterCount += (long) dimensions[i] * (dimensions[i - 1] + 1);
+            }
+            if (8 * parameterCount > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException(path + " is too large to map as a single model!");
+            }
+            long position = headerBytes(layers);
+            if (channel.size() != position + 8 * parameterCount) {
+                throw new IllegalArgumentException(path + " is truncated or has trailing data!");
+            }
+
+            // The mapping stays valid after the channel is closed
+            DoubleBuffer parameters = channel.map(FileChannel.MapMode.READ_ONLY, position, 8 * parameterCount)
+                    .order(ByteOrder.LITTLE_ENDIAN)
+                    .asDoubleBuffer();
+            return new MappedNetwork(activationFunction, dimensions, parameters);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Unable to read " + path, ex);
+        }
+    }
+
+    /**
+     * Read a model onto the heap as a network that can be trained further
+     */
+    public static FlatMultiLayerPerceptron load(Path path) {
+        MappedNetwork mapped = map(path);
+        double[] parameters = new double[mapped.getParameters().limit()];
+        mapped.getParameters().get(0, parameters);
+        return new FlatMultiLayerPerceptron(mapped.getActivationFunction(), mapped.getDimensions(), parameters);
+    }
+
+    static int activationId(IActivationFunction activationFunction) {
+        if (activationFunction instanceof HyperbolicTangent) {
+            return HYPERBOLIC_TANGENT;
+        }
+        if (activationFunction instanceof LookupTableTangent) {
+            return LOOKUP_TABLE_TANGENT;
+        }
+        if (activationFunction instanceof RationalTangent) {
+            return RATIONAL_TANGENT;
+        }
+        throw new IllegalArgumentException("No model id for " + activationFunction.getClass().getSimpleName());
+    }
+
+    static IActivationFunction activationFunction(int id) {
+        switch (id) {
+            case HYPERBOLIC_TANGENT:
+                return new HyperbolicTangent();
+            case LOOKUP_TABLE_TANGENT:
+                return new LookupTableTangent();
+            case RATIONAL_TANGENT:
+                return new RationalTangent();
+            default:
+                throw new IllegalArgumentException("Unknown activation function id " + id);
+        }
+    }
+
+    // Fixed fields and layer sizes, padded so the parameters start on an eight byte boundary
+    private static int headerBytes(int layers) {
+        return (16 + 4 * layers + 7) & ~7;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, Path path) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IllegalArgumentException(path + " is not a model file!");
+            }
+        }
+        buffer.flip();
+    }
+}
@@ -1,23 +1,41 @@
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 
 public class MultiLayerPerceptron implements INeuralNetwork {
 
     private List<Layer> layers;
     private final IActivationFunction activationFunction;
 
+    private final int[] dimensions;
+    private final int[] layerOffsets;
+    private final ThreadLocal<double[][]> batchBuffers;
+    // Flat copy of the weights for the batched kernel, packed again once any neuron has been modified since
+    private volatile PackedParameters packedParameters;
+
     private double convergenceTime;
 
     MultiLayerPerceptron(IActivationFunction activationFunction, int[] networkDimensions) {
+        this(activationFunction, networkDimensions, ThreadLocalRandom.current());
+    }
+
+    /**
+     * Create a network whose initial weights and biases are drawn from the supplied generator
+     */
+    MultiLayerPerceptron(IActivationFunction activationFunction, int[] networkDimensions, RandomGenerator random) {
         this.activationFunction = activationFunction;
-        this.initializeNetwork(networkDimensions);
+        this.initializeNetwork(networkDimensions, random);
+        this.dimensions = networkDimensions.clone();
+        this.layerOffsets = FlatMultiLayerPerceptron.computeLayerOffsets(dimensions);
+        this.batchBuffers = ThreadLocal.withInitial(() -> BatchKernel.createScratch(dimensions));
     }
 
     /**
      * Execute a forward propagation through the network using the supplied array as inputs
      */
     public double[] execute(double[] inputs) {
-        if (inputs.length != this.layers.get(0).getNeuron(0).getWeights().size()) {
+        if (inputs.length != this.layers.get(0).getNeuron(0).size) {
             throw new IllegalArgumentException("Input/Network size mismatch!");
         }
 
@@ -28,6 +46,39 @@ public class MultiLayerPerceptron implements INeuralNetwork {
         return inputs;
     }
 
+    /**
+     * Execute a forward propagation for every sample in the dataset using the batched kernel over a flat snapshot of
+     * the current weights, writing the outputs row by row into the supplied buffer
+     */
+    @Override
+    public double[] executeBatch(Dataset samples, double[] outputs) {
+        double[] parameters = packParameters();
+        outputs = BatchKernel.ensureCapacity(outputs, samples.size(), dimensions);
+        BatchKernel.forward(dimensions, layerOffsets, parameters, activationFunction,
+                samples, 0, samples.size(), batchBuffers.get(), outputs);
+        return outputs;
+    }
+
+    /**
+     * The flat snapshot of the weights and biases, packed only when a neuron has changed since the last one. The
+     * snapshot is never written once published, so concurrent batches may share it.
+     */
+    private double[] packParameters() {
+        long modifications = 0;
+        for (Layer layer : layers) {
+            for (Neuron neuron : layer.getNeurons()) {
+                modifications += neuron.getModifications();
+            }
+        }
+        PackedParameters packed = this.packedParameters;
+        if (packed == null || packed.modifications != modifications) {
+            packed = new PackedParameters(modifications,
+                    FlatMultiLayerPerceptron.packParameters(this, new double[layerOffsets[layerOffsets.length - 1]]));
+            this.packedParameters = packed;
+        }
+        return packed.parameters;
+    }
+
     public Layer getLayer(int index) {
         return this.layers.get(index);
     }
@@ -56,17 +107,36 @@ public class MultiLayerPerceptron implements INeuralNetwork {
         return this.activationFunction.computeDerivative(input);
     }
 
+    @Override
+    public IActivationFunction getActivationFunction() {
+        return this.activationFunction;
+    }
+
     /**
      * Create a new network of the supplied dimensions
      */
-    private void initializeNetwork(int[] networkDimensions) {
+    private void initializeNetwork(int[] networkDimensions, RandomGenerator random) {
         if (networkDimensions == null || networkDimensions.length < 2) {
             throw new IllegalArgumentException("Invalid network configuration!");
         }
 
         this.layers = new ArrayList<>(networkDimensions.length);
         for (int i = 1; i < networkDimensions.length; i++) {
-            this.layers.add(new Layer(networkDimensions[i], networkDimensions[i - 1], this.activationFunction));
+            this.layers.add(new Layer(networkDimensions[i], networkDimensions[i - 1], this.activationFunction, random));
+        }
+    }
+
+    /**
+     * Packed weights and biases along with the total neuron modification count they were packed at
+     */
+    private static final class PackedParameters {
+
+        private final long modifications;
+        private final double[] parameters;
+
+        PackedParameters(long modifications, double[] parameters) {
+            this.modifications = modifications;
+            this.parameters = parameters;
         }
     }
-}
\ No newline at end of file
+}
@@ -1,17 +1,40 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.random.RandomGenerator;
+
 /**
  * Factory class for centralizing create of new networks and trainers
  * The tuning parameters used for each network and trainer are listed below.
  */
 public class NetworkFactory {
 
+    /* Random Number Generation */
+    private static final long seed = System.nanoTime();    // Set to a constant to reproduce a run exactly
+    private static final RandomSource networkRandom = new RandomSource(seed).split(0);
+    private static final RandomSource trainerRandom = new RandomSource(seed).split(1);
+    private static final RandomSource validationRandom = new RandomSource(seed).split(2);
+    private static final RandomSource searchRandom = new RandomSource(seed).split(3);
+    // Networks and trainers are seeded in the order they are built
+    private static final AtomicLong networksBuilt = new AtomicLong();
+    private static final AtomicLong trainersBuilt = new AtomicLong();
+
     /* MultiLayer Perceptron Parameters */
     private static final int[] layers = new int[]{6, 15, 2};    // Size of each layer
-    private static final IActivationFunction activationFunction = new HyperbolicTangent();
+    private static final ActivationFunctionType activationType = ActivationFunctionType.HyperbolicTangent;    // Or an approximation
 
     /* Backpropagation Parameters */
     private static final int batchSize = 3;
     private static final double learningRate = 0.01;
     private static final double momentum = 0.0;
+    private static final int workers = 1;    // Data parallel worker threads, 1 trains on the caller
 
     /* Evolution Strategy Parameters */
     private static final int populationSizeES = 75;
@@ -24,37 +47,278 @@ public class NetworkFactory {
     private static final double beta = 0.6;
     private static final double crossoverRate = 0.05;
 
+    /* Island Model Parameters (ES, DE and GA) */
+    private static final int islands = 1;              // Sub-populations evolved on separate threads, 1 disables
+    private static final int migrationInterval = 10;   // Generations between migrations
+    private static final int migrants = 2;             // Individuals sent by each island per migration
+    private static final MigrationTopology topology = MigrationTopology.Ring;
+
+    /* Fitness Evaluation Parameters (ES, DE and GA) */
+    private static final int fitnessCacheSize = 0;     // Genomes whose fitness is remembered by weight hash, 0 disables
+    private static final int subsampleSize = 0;        // Training samples each generation is scored on, 0 uses them all
+    private static final int eliteInterval = 10;       // Generations between scoring the elites on every sample
+    private static final int eliteCount = 5;           // Best survivors scored on every sample
+    private static final boolean racing = true;        // Stop scoring offspring once they cannot survive
+
+    /* Checkpoint Parameters (ES, DE and GA) */
+    private static final int checkpointInterval = 0;          // Generations between checkpoints, 0 disables
+    private static final String checkpointDirectory = "checkpoints";    // Trainer n of type T saves to T-n.ckpt here
+
+    /* Stopping Parameters (ES, DE and GA), a criterion set to 0 is disabled */
+    private static final int maxGenerations = 5000;
+    private static final int patience = 100;              // Generations without a new best validation error
+    private static final int improvementWindow = 250;     // Validations over which the best error must improve
+    private static final double minImprovement = 0.01;    // by at least this fraction of itself
+
+    /* Stopping Parameters (Backpropagation), a criterion set to 0 is disabled */
+    private static final int maxEpochs = 20000;
+    private static final int epochPatience = 250;
+    private static final int epochWindow = 500;
+    private static final double epochMinImprovement = 0.001;
+
+    /* Stopping Parameters (all trainers), a criterion set to 0 is disabled */
+    private static final double timeBudgetSeconds = 0;    // Wall clock time of each run
+    private static final long evaluationBudget = 0;       // Individuals scored, or samples trained, by each run
+    private static final double targetError = 0.0;        // Validation error at which a run is good enough
+
+    /* Telemetry Parameters (all trainers) */
+    private static final int telemetryCapacity = 4096;     // Records buffered ahead of the writer thread
+    private static final String telemetryFile = null;      // .csv or .jsonl file of per generation records, null disables
+    private static final Telemetry telemetry = createTelemetry();
+
+    /* Cross Validation Parameters */
+    private static final int validationThreads = Runtime.getRuntime().availableProcessors();    // Runs trained at once
+    private static final NetworkType validationNetwork = NetworkType.MultiLayerPerceptron;
+
+    /* Hyperparameter Search Parameters */
+    private static final int searchThreads = Runtime.getRuntime().availableProcessors();    // Trials trained at once
+    private static final NetworkType searchNetwork = NetworkType.MultiLayerPerceptron;
+
     /* Genetic Algorithm Parameters */
     private static final int populationSizeGA = 75;
     private static final double mutationRateGA = 0.001;
     private static final int numParentsGA = 5;
     private static final int numberOffspringGA = 10;
 
+    /**
+     * Collect the above tuning parameters into a config, which can be changed and passed to the build methods below
+     */
+    public static TrainerConfig buildConfig() {
+        TrainerConfig config = new TrainerConfig();
+        config.setLayers(layers);
+        config.setActivationType(activationType);
+        config.setBatchSize(batchSize);
+        config.setLearningRate(learningRate);
+        config.setMomentum(momentum);
+        config.setWorkers(workers);
+        config.setPopulationSizeES(populationSizeES);
+        config.setNumberOffspringES(numberOffspring);
+        config.setNumberParentsES(numberParents);
+        config.setMutationRateES(mutationRate);
+        config.setPopulationSizeDE(populationSizeDE);
+        config.setBeta(beta);
+        config.setCrossoverRate(crossoverRate);
+        config.setPopulationSizeGA(populationSizeGA);
+        config.setMutationRateGA(mutationRateGA);
+        config.setNumberParentsGA(numParentsGA);
+        config.setNumberOffspringGA(numberOffspringGA);
+        config.setIslands(islands);
+        config.setMigrationInterval(migrationInterval);
+        config.setMigrants(migrants);
+        config.setTopology(topology);
+        config.setFitnessCacheSize(fitnessCacheSize);
+        config.setSubsampleSize(subsampleSize);
+        config.setEliteInterval(eliteInterval);
+        config.setEliteCount(eliteCount);
+        config.setRacing(racing);
+        config.setCheckpointInterval(checkpointInterval);
+        config.setMaxGenerations(maxGenerations);
+        config.setPatience(patience);
+        config.setImprovementWindow(improvementWindow);
+        config.setMinImprovement(minImprovement);
+        config.setMaxEpochs(maxEpochs);
+        config.setEpochPatience(epochPatience);
+        config.setEpochWindow(epochWindow);
+        config.setEpochMinImprovement(epochMinImprovement);
+        config.setTimeBudgetSeconds(timeBudgetSeconds);
+        config.setEvaluationBudget(evaluationBudget);
+        config.setTargetError(targetError);
+        return config;
+    }
+
     /**
      * Create a new instance of the specified training using the above tuning parameters
      */
     public static INetworkTrainer buildNetworkTrainer(NetworkTrainerType type) {
+        return buildNetworkTrainer(type, buildConfig());
+    }
+
+    /**
+     * Create a new instance of the specified trainer using the tuning parameters of the config
+     */
+    public static INetworkTrainer buildNetworkTrainer(NetworkTrainerType type, TrainerConfig config) {
+        long index = trainersBuilt.getAndIncrement();
+        NetworkTrainerBase trainer;
         switch (type) {
             case BPNetworkTrainer:
-                return new BPNetworkTrainer(learningRate, momentum, batchSize);
+                trainer = new BPNetworkTrainer(config.getLearningRate(), config.getMomentum(), config.getBatchSize(),
+                        config.getWorkers());
+                break;
             case DENetworkTrainer:
-                return new DENetworkTrainer(populationSizeDE, beta, crossoverRate);
+                trainer = configureEvolution(new DENetworkTrainer(config.getPopulationSizeDE(), config.getBeta(),
+                        config.getCrossoverRate()), config);
+                break;
             case ESNetworkTrainer:
-                return new ESNetworkTrainer(populationSizeES, numberParents, numberOffspring, mutationRate);
+                trainer = configureEvolution(new ESNetworkTrainer(config.getPopulationSizeES(),
+                        config.getNumberParentsES(), config.getNumberOffspringES(), config.getMutationRateES()), config);
+                break;
             case GANetworkTrainer:
-                return new GANetworkTrainer(populationSizeGA, mutationRateGA, numParentsGA, numberOffspringGA);
+                trainer = configureEvolution(new GANetworkTrainer(config.getPopulationSizeGA(),
+                        config.getMutationRateGA(), config.getNumberParentsGA(), config.getNumberOffspringGA()), config);
+                break;
             default:
                 throw new IllegalArgumentException("Invalid trainer type!");
         }
+        trainer.setRandomSource(trainerRandom.split(index));
+        trainer.setStoppingPolicy(buildStoppingPolicy(type, config));
+        trainer.setTelemetry(telemetry);
+        if (config.getCheckpointInterval() > 0 && type != NetworkTrainerType.BPNetworkTrainer) {
+            trainer.setCheckpoints(getCheckpointPath(type, index), config.getCheckpointInterval());
+        }
+        return trainer;
+    }
+
+    /**
+     * File the n-th trainer built saves its checkpoints to, pass it to INetworkTrainer.resume to continue its run
+     */
+    public static Path getCheckpointPath(NetworkTrainerType type, long n) {
+        try {
+            return Files.createDirectories(Paths.get(checkpointDirectory)).resolve(type.name() + "-" + n + ".ckpt");
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Unable to create " + checkpointDirectory, ex);
+        }
+    }
+
+    private static NetworkTrainerBase configureEvolution(NetworkTrainerBase trainer, TrainerConfig config) {
+        trainer.setIslandModel(config.getIslands(), config.getMigrationInterval(), config.getMigrants(),
+                config.getTopology());
+        trainer.setFitnessCache(config.getFitnessCacheSize());
+        trainer.setRacing(config.isRacing());
+        trainer.setSubsampling(config.getSubsampleSize(), config.getEliteInterval(), config.getEliteCount());
+        return trainer;
+    }
+
+    /**
+     * Combine every enabled stopping criterion of the config into the policy of one trainer, backpropagation counts
+     * epochs where the evolutionary trainers count generations
+     */
+    public static IStoppingPolicy buildStoppingPolicy(NetworkTrainerType type, TrainerConfig config) {
+        boolean epochs = type == NetworkTrainerType.BPNetworkTrainer;
+        int limit = epochs ? config.getMaxEpochs() : config.getMaxGenerations();
+        int patience = epochs ? config.getEpochPatience() : config.getPatience();
+        int window = epochs ? config.getEpochWindow() : config.getImprovementWindow();
+        double improvement = epochs ? config.getEpochMinImprovement() : config.getMinImprovement();
+
+        List<IStoppingPolicy> policies = new ArrayList<>();
+        if (limit > 0) {
+            policies.add(new GenerationLimitStoppingPolicy(limit));
+        }
+        if (patience > 0) {
+            policies.add(new PatienceStoppingPolicy(patience));
+        }
+        if (window > 0) {
+            policies.add(new ImprovementWindowStoppingPolicy(window, improvement));
+        }
+        if (config.getTimeBudgetSeconds() > 0) {
+            policies.add(new TimeBudgetStoppingPolicy(Duration.ofNanos((long) (config.getTimeBudgetSeconds() * 1e9))));
+        }
+        if (config.getEvaluationBudget() > 0) {
+            policies.add(new EvaluationBudgetStoppingPolicy(config.getEvaluationBudget()));
+        }
+        if (config.getTargetError() > 0) {
+            policies.add(new TargetErrorStoppingPolicy(config.getTargetError()));
+        }
+        return new AnyStoppingPolicy(policies);
+    }
+
+    /**
+     * Create an activation function, the approximations trade a bounded error for avoiding Math.tanh
+     */
+    public static IActivationFunction buildActivationFunction(ActivationFunctionType type) {
+        switch (type) {
+            case HyperbolicTangent:
+                return new HyperbolicTangent();
+            case LookupTableTangent:
+                return new LookupTableTangent();
+            case RationalTangent:
+                return new RationalTangent();
+            default:
+                throw new IllegalArgumentException("Invalid activation function type!");
+        }
+    }
+
+    /**
+     * Create a 5x2 cross validation of the specified trainers using the above tuning parameters
+     */
+    public static CrossValidation buildCrossValidation(NetworkTrainerType... trainers) {
+        return new CrossValidation(Arrays.asList(trainers), validationNetwork, validationThreads, validationRandom);
+    }
+
+    /**
+     * Create a search over the tuning parameters of a trainer, varying the dimensions added to it from the base config
+     */
+    public static HyperparameterSearch buildSearch(NetworkTrainerType trainer, TrainerConfig base) {
+        return new HyperparameterSearch(trainer, searchNetwork, base, searchThreads, searchRandom);
+    }
+
+    /**
+     * Shared by every trainer and closed at exit, which writes any records still buffered. Null while no telemetry
+     * file is set, so records never mix with the console output.
+     */
+    private static Telemetry createTelemetry() {
+        if (telemetryFile == null) {
+            return null;
+        }
+
+        ITelemetrySink sink;
+        try {
+            if (telemetryFile.endsWith(".jsonl")) {
+                sink = new JsonLinesTelemetrySink(Paths.get(telemetryFile));
+            } else {
+                sink = new CsvTelemetrySink(Paths.get(telemetryFile));
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Unable to open telemetry file " + telemetryFile, ex);
+        }
+        Telemetry telemetry = new Telemetry(telemetryCapacity, sink);
+        Runtime.getRuntime().addShutdownHook(new Thread(telemetry::close));
+        return telemetry;
     }
 
     /**
      * Construct a neural network of the specified type using the above tuning parameters
      */
     public static INeuralNetwork buildNewNetwork(NetworkType type) {
+        return buildNewNetwork(type, buildConfig());
+    }
+
+    /**
+     * Construct a neural network of the specified type with the layers and activation function of the config
+     */
+    public static INeuralNetwork buildNewNetwork(NetworkType type, TrainerConfig config) {
+        return buildNewNetwork(type, config, networkRandom.generator(networksBuilt.getAndIncrement()));
+    }
+
+    /**
+     * Construct a neural network whose initial weights are drawn from the supplied generator
+     */
+    public static INeuralNetwork buildNewNetwork(NetworkType type, TrainerConfig config, RandomGenerator random) {
+        IActivationFunction activationFunction = buildActivationFunction(config.getActivationType());
         switch (type) {
             case MultiLayerPerceptron:
-                return new MultiLayerPerceptron(activationFunction, layers);
+                return new MultiLayerPerceptron(activationFunction, config.getLayers(), random);
+            case FlatMultiLayerPerceptron:
+                return new FlatMultiLayerPerceptron(activationFunction, config.getLayers(), random);
             default:
                 throw new IllegalArgumentException("Invalid network type!");
         }
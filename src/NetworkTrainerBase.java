@@ -1,37 +1,470 @@
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.random.RandomGenerator;
 import java.util.stream.IntStream;
 
 public class NetworkTrainerBase implements INetworkTrainer {
 
-    protected final Random random = new Random(System.nanoTime());
+    // Key of the population initialization stream within each island's random source
+    private static final long INITIALIZATION = -1;
+    // Key of the mini-batch order within each run's random source
+    private static final long SUBSAMPLING = -2;
+
     protected final int populationSize;
 
-    protected int cutoffCounter = 0;
-    protected double runningAvg = 0.0;
+    // Every random decision of the trainer derives from this source, each call to train splits off its own run
+    protected RandomSource randomSource = new RandomSource(System.nanoTime());
+    protected RandomSource runRandom;
+    private int runs = 0;
+
     protected double startTime = 0.0;
 
-    protected int bestGeneration = 0;
-    protected double bestError = Double.MAX_VALUE;
+    // Decides when a run is done from its progress, a run without a policy is only limited in length
+    protected IStoppingPolicy stoppingPolicy = new GenerationLimitStoppingPolicy(5000);
+    protected final TrainingProgress progress = new TrainingProgress();
+    // Copy of the best individual of the run, allocated on its first improvement and overwritten in place after that
     protected WeightMatrix bestNetwork;
 
+    protected FitnessEvaluator evaluator;
+    protected final IGeneticOperators operators = GeneticOperatorFactory.getOperators();
+    protected WeightMatrix generationBest;
+
+    // Island model, a single island evolves one population on the calling thread
+    protected int islands = 1;
+    protected int migrationInterval = 1;
+    protected int migrants = 0;
+    protected MigrationTopology topology = MigrationTopology.Ring;
+
+    // Fitness of recently scored genomes, null when disabled
+    protected FitnessCache fitnessCache;
+
+    // Stop scoring an individual once its partial error shows it cannot survive
+    private boolean racing;
+
+    // Subsampled evaluation, each generation is scored on a mini-batch of subsampleSize samples, 0 disables
+    private int subsampleSize;
+    private int eliteInterval;
+    private int eliteCount;
+    private MiniBatchSampler sampler;
+    private IDatasetSource fullTrainingSet;
+
+    // Per generation metrics, null when disabled. Work since the last record is summed from every island thread.
+    protected Telemetry telemetry;
+    protected final LongAdder generationNanos = new LongAdder();
+    protected final LongAdder evaluationNanos = new LongAdder();
+    protected final LongAdder evaluations = new LongAdder();
+    private long lastRecord;
+
+    // Notified of every validated generation, may stop the run early, null when not observed
+    protected ITrainingListener listener;
+    protected boolean stopRequested;
+
+    // Periodic checkpoints of evolutionary runs, written on a background thread, disabled while the path is null
+    private Path checkpointPath;
+    private int checkpointInterval;
+    private int nextCheckpoint;
+    private ExecutorService checkpointWriter;
+    private Future<?> pendingCheckpoint;
+    // Checkpoint the next run continues from instead of starting afresh
+    private Checkpoint resumeFrom;
+
     NetworkTrainerBase(int populationSize) {
         this.populationSize = populationSize;
     }
 
+    /**
+     * Shuffle the samples, hold out the first tenth as a validation set and train on the remainder
+     */
     @Override
     public INeuralNetwork train(INeuralNetwork network, Dataset samples) {
+        samples.shuffle(randomSource.split(runs).generator(INITIALIZATION));
+        Dataset validationSet = new Dataset(samples.subList(0, samples.size() / 10));
+        Dataset trainingSet = new Dataset(samples.subList(samples.size() / 10, samples.size()));
+        return train(network, trainingSet, validationSet);
+    }
+
+    @Override
+    public INeuralNetwork train(INeuralNetwork network, IDatasetSource trainingSet, Dataset validationSet) {
         System.out.println("Train should be called an instance of the base, not the base class itself!!");
         System.exit(-1);
         return null;
     }
 
+    /**
+     * Continue the run saved in a checkpoint. The samples must be the dataset the run was started with, in the same
+     * order, so the same validation set is held out. Training then proceeds exactly as the original run would have
+     * from the checkpointed generation.
+     */
+    @Override
+    public INeuralNetwork resume(INeuralNetwork network, Dataset samples, Path checkpoint) {
+        Checkpoint state = Checkpoint.read(checkpoint, network);
+        if (!state.getTrainer().equals(getClass().getSimpleName())) {
+            throw new IllegalArgumentException(checkpoint + " was written by " + state.getTrainer() + "!");
+        }
+        if (state.getPopulations().size() != islands) {
+            throw new IllegalArgumentException(checkpoint + " holds " + state.getPopulations().size()
+                    + " islands but the trainer evolves " + islands + "!");
+        }
+        // Recreating the run's random source reproduces its validation split and every later draw
+        this.randomSource = state.getRandomSource();
+        this.runs = state.getRun();
+        this.resumeFrom = state;
+        try {
+            return train(network, samples);
+        } finally {
+            this.resumeFrom = null;
+        }
+    }
+
+    /**
+     * Evolve N sub-populations on separate threads, exchanging the best individuals between them every
+     * migrationInterval generations according to the topology
+     */
+    void setIslandModel(int islands, int migrationInterval, int migrants, MigrationTopology topology) {
+        this.islands = islands;
+        this.migrationInterval = migrationInterval;
+        this.migrants = migrants;
+        this.topology = topology;
+    }
+
+    /**
+     * Seed every random decision of this trainer from the supplied source, so its runs can be reproduced
+     */
+    void setRandomSource(RandomSource randomSource) {
+        this.randomSource = randomSource;
+        this.runs = 0;
+    }
+
+    /**
+     * Remember the fitness of up to capacity recently scored genomes so duplicates are never scored twice, zero disables
+     */
+    void setFitnessCache(int capacity) {
+        this.fitnessCache = capacity > 0 ? new FitnessCache(capacity) : null;
+    }
+
+    /**
+     * Stop scoring an individual once its partial error passes the fitness it needs to survive, the worst survivor for
+     * truncation selection or the parent for differential evolution. Sample errors are never negative, so the aborted
+     * individual could not have survived and the run selects exactly the same individuals as without racing.
+     */
+    void setRacing(boolean racing) {
+        this.racing = racing;
+    }
+
+    /**
+     * Score every generation on a rotating mini-batch of size training samples instead of the whole training set, zero
+     * disables. Every eliteInterval generations the best eliteCount survivors are scored on the whole training set,
+     * and any individual whose batch estimate beats one of those elites is scored on it before they are compared.
+     */
+    void setSubsampling(int size, int eliteInterval, int eliteCount) {
+        if (size < 0 || eliteInterval < 0 || eliteCount < 0) {
+            throw new IllegalArgumentException("Subsampling parameters must not be negative!");
+        }
+        this.subsampleSize = size;
+        this.eliteInterval = eliteInterval;
+        this.eliteCount = eliteCount;
+    }
+
+    /**
+     * Publish a record of every generation, or epoch, to the telemetry buffer, null disables
+     */
+    void setTelemetry(Telemetry telemetry) {
+        this.telemetry = telemetry;
+    }
+
+    /**
+     * Decide when runs are done with the supplied policy, which must not be shared with another trainer
+     */
+    void setStoppingPolicy(IStoppingPolicy stoppingPolicy) {
+        this.stoppingPolicy = stoppingPolicy;
+    }
+
+    /**
+     * Notify the listener of the best validation error of every generation, or epoch, null disables
+     */
+    void setListener(ITrainingListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Save the state of evolutionary runs to path every interval generations, a null path disables checkpoints
+     */
+    void setCheckpoints(Path path, int interval) {
+        if (path != null && interval < 1) {
+            throw new IllegalArgumentException("Checkpoints must be at least one generation apart!");
+        }
+        this.checkpointPath = path;
+        this.checkpointInterval = interval;
+    }
+
+    /**
+     * Build the initial population of an evolutionary trainer, drawing individual i from random.generator(i)
+     */
+    protected Population initializePopulation(INeuralNetwork network, RandomSource random) {
+        throw new UnsupportedOperationException("Only evolutionary trainers have a population!");
+    }
+
+    /**
+     * Perform one generation of an evolutionary trainer, returning the population that survives it. The source is
+     * specific to the island and generation, offspring i draws from random.generator(i).
+     */
+    protected Population nextGeneration(Population population, IDatasetSource trainingSet, int generation,
+                                        RandomSource random) {
+        throw new UnsupportedOperationException("Only evolutionary trainers have a population!");
+    }
+
+    /**
+     * Shared driver for the evolutionary trainers. Evolves a single population, or a set of islands when the island
+     * model is enabled, until shouldContinue stops it and returns the best network seen on the validation set.
+     */
+    protected INeuralNetwork evolve(INeuralNetwork network, IDatasetSource trainingSet, Dataset validationSet,
+                                    NetworkTrainerType type) {
+        startTimer();
+        evaluator = new FitnessEvaluator(network);
+        if (fitnessCache != null) {
+            fitnessCache.clear();
+        }
+        fullTrainingSet = trainingSet;
+        sampler = subsampleSize > 0 ? new MiniBatchSampler(trainingSet, subsampleSize, runRandom.split(SUBSAMPLING)) : null;
+
+        Checkpoint resumed = resumeFrom;
+        resumeFrom = null;
+        int firstGeneration = resumed != null ? restore(resumed) : 0;
+        nextCheckpoint = firstGeneration + checkpointInterval;
+
+        try {
+            if (islands > 1) {
+                evolveIslands(network, trainingSet, validationSet, resumed, firstGeneration);
+            } else {
+                RandomSource islandRandom = runRandom.split(0);
+                Population population = resumed != null
+                        ? resumed.getPopulations().get(0)
+                        : initializePopulation(network, islandRandom.split(INITIALIZATION));
+                int generation = firstGeneration;
+                while (shouldContinue(validatePopulation(population, validationSet, generation), generation, network)) {
+                    long start = System.nanoTime();
+                    population = evolveGeneration(population, trainingSet, generation, islandRandom.split(generation));
+                    generationNanos.add(System.nanoTime() - start);
+                    generation++;
+                    checkpoint(generation, Collections.singletonList(population));
+                }
+            }
+            awaitCheckpoint();
+        } finally {
+            // A streamed training set is still open on the pass the last batch was read from
+            if (sampler != null) {
+                sampler.close();
+            }
+        }
+
+        INeuralNetwork best = bestNetwork.buildNetwork();
+        printConvergence(type, best);
+        return best;
+    }
+
+    /**
+     * Perform one generation. When subsampling, the survivors of the last generation are scored again on this
+     * generation's mini-batch before the generation is run on it, so parents and offspring are compared on the same
+     * samples, and every eliteInterval generations the elites are scored on the whole training set. Only the best
+     * eliteCount exact scores are kept from one generation to the next, every other survivor is estimated again.
+     */
+    private Population evolveGeneration(Population population, IDatasetSource trainingSet, int generation,
+                                        RandomSource random) {
+        if (sampler == null) {
+            return nextGeneration(population, trainingSet, generation, random);
+        }
+
+        Dataset batch = sampler.batch(generation);
+        double eliteCutoff = exactCutoff(population, eliteCount);
+        for (WeightMatrix individual : population) {
+            if (individual.isFitnessEstimated() || individual.getFitness() > eliteCutoff) {
+                individual.invalidateFitness();
+            }
+        }
+        evaluatePopulation(population, batch);
+        Population survivors = nextGeneration(population, batch, generation, random);
+
+        if (eliteInterval > 0 && eliteCount > 0 && (generation + 1) % eliteInterval == 0) {
+            Population elites = new Population(survivors);
+            elites.sortByFitness();
+            elites = new Population(elites.subList(0, Math.min(eliteCount, elites.size())));
+            for (WeightMatrix elite : elites) {
+                if (elite.isFitnessEstimated()) {
+                    elite.invalidateFitness();
+                }
+            }
+            evaluatePopulation(elites, trainingSet);
+        }
+        return survivors;
+    }
+
+    /**
+     * Run each island on its own worker thread for migrationInterval generations at a time. Between runs the islands
+     * are validated together and exchange migrants, so the stopping criteria see one value per migration epoch.
+     */
+    private void evolveIslands(INeuralNetwork network, IDatasetSource trainingSet, Dataset validationSet,
+                               Checkpoint resumed, int startGeneration) {
+        List<Population> populations = new ArrayList<>(islands);
+        for (int i = 0; i < islands; i++) {
+            populations.add(resumed != null
+                    ? resumed.getPopulations().get(i)
+                    : initializePopulation(network, runRandom.split(i).split(INITIALIZATION)));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(islands);
+        try {
+            int generation = startGeneration;
+            while (shouldContinue(validatePopulation(combine(populations), validationSet, generation), generation, network)) {
+                int firstGeneration = generation;
+                List<Future<Population>> results = new ArrayList<>(islands);
+                for (int i = 0; i < islands; i++) {
+                    Population island = populations.get(i);
+                    RandomSource islandRandom = runRandom.split(i);
+                    results.add(executor.submit(() -> {
+                        Population population = island;
+                        long start = System.nanoTime();
+                        for (int g = firstGeneration; g < firstGeneration + migrationInterval; g++) {
+                            population = evolveGeneration(population, trainingSet, g, islandRandom.split(g));
+                        }
+                        generationNanos.add(System.nanoTime() - start);
+                        return population;
+                    }));
+                }
+                for (int i = 0; i < islands; i++) {
+                    populations.set(i, results.get(i).get());
+                }
+
+                migrate(populations);
+                generation += migrationInterval;
+                checkpoint(generation, populations);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Island evolution was interrupted", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Island evolution failed", ex.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Replace the least fit individuals of every island with copies of the best individuals of its neighbours.
+     * Emigrants are chosen from every island before any island is modified.
+     */
+    private void migrate(List<Population> populations) {
+        List<List<WeightMatrix>> emigrants = new ArrayList<>(islands);
+        for (Population island : populations) {
+            island.sortByFitness();
+            emigrants.add(new ArrayList<>(island.subList(0, Math.min(migrants, island.size()))));
+        }
+
+        for (int i = 0; i < islands; i++) {
+            List<WeightMatrix> arriving;
+            if (topology == MigrationTopology.Ring) {
+                arriving = emigrants.get((i + islands - 1) % islands);
+            } else {
+                Population others = new Population();
+                for (int j = 0; j < islands; j++) {
+                    if (j != i) {
+                        others.addAll(emigrants.get(j));
+                    }
+                }
+                others.sortByFitness();
+                arriving = others.subList(0, Math.min(migrants, others.size()));
+            }
+
+            // Populations are sorted most fit first, so the least fit are at the end
+            Population island = populations.get(i);
+            for (int j = 0; j < arriving.size(); j++) {
+                island.set(island.size() - 1 - j, arriving.get(j).copy());
+            }
+        }
+    }
+
+    /**
+     * Restore the counters and best individual of a checkpointed run, returning the generation it continues from
+     */
+    private int restore(Checkpoint checkpoint) {
+        this.bestNetwork = checkpoint.getBest();
+        this.startTime = System.nanoTime() - checkpoint.getElapsedNanos();
+        progress.restore(checkpoint.getBestGeneration(), checkpoint.getBestError(), (long) startTime,
+                checkpoint.getEvaluations());
+        stoppingPolicy.setState(checkpoint.getPolicyState());
+        return checkpoint.getGeneration();
+    }
+
+    /**
+     * Snapshot the run on the training thread once the generation reaches the next checkpoint and write it in the
+     * background. While the previous checkpoint is still being written the snapshot is put off to a later generation
+     * rather than queued.
+     */
+    private void checkpoint(int generation, List<Population> populations) {
+        if (checkpointPath == null || generation < nextCheckpoint
+                || (pendingCheckpoint != null && !pendingCheckpoint.isDone())) {
+            return;
+        }
+        nextCheckpoint = generation + checkpointInterval;
+
+        // The evaluations of the generations since the last record are still in the adder until the next validation
+        Checkpoint checkpoint = new Checkpoint(getClass().getSimpleName(), randomSource, runs - 1, generation,
+                progress.getBestGeneration(), progress.getBestError(), System.nanoTime() - (long) startTime,
+                progress.getEvaluations() + evaluations.sum(), stoppingPolicy.getState(), bestNetwork, populations);
+        if (checkpointWriter == null) {
+            checkpointWriter = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "checkpoint-writer");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        Path path = checkpointPath;
+        pendingCheckpoint = checkpointWriter.submit(() -> {
+            try {
+                checkpoint.write(path);
+            } catch (UncheckedIOException ex) {
+                // A failed checkpoint must not end the run, the previous checkpoint is left in place
+                System.err.println(ex.getMessage() + ": " + ex.getCause());
+            }
+        });
+    }
+
+    /**
+     * Wait for the last checkpoint of a run to reach the disk
+     */
+    private void awaitCheckpoint() {
+        if (pendingCheckpoint == null) {
+            return;
+        }
+        try {
+            pendingCheckpoint.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Checkpoint failed", ex.getCause());
+        }
+        pendingCheckpoint = null;
+    }
+
+    private Population combine(List<Population> populations) {
+        Population combined = new Population();
+        populations.forEach(combined::addAll);
+        return combined;
+    }
+
     /**
      * Select N individuals from the population without duplicates using rank based selection according to an
      * exponential distribution
      */
-    protected Population selectParents(Population population, int numParents) {
+    protected Population selectParents(Population population, int numParents, RandomGenerator random) {
         List<Integer> parentIndices = new ArrayList<>(numParents);
         while (parentIndices.size() < numParents) {
             // Select parent indices according to an exponential distribution // TODO: Find cleaner way to do this
@@ -49,39 +482,187 @@ public class NetworkTrainerBase implements INetworkTrainer {
     }
 
     /**
-     * Perform a multi threaded evaluation of each individual in the population by calling evaluate individual foreach.
+     * Perform a multi threaded evaluation of each individual in the population, each thread scoring whole individuals
+     * with its own scratch buffers. Fitness is accumulated chunk by chunk so the training data never has to be loaded.
+     * Individuals whose fitness is still valid, or whose genome is in the fitness cache, are not scored again.
+     * When subsampling, fitness is the mean error per sample so batch estimates and whole set scores are comparable
+     * and the fitness cache is bypassed. With racing each new individual stops being scored once its error passes the
+     * worst of the populationSize best individuals already scored, since it can no longer survive.
+     */
+    protected void evaluatePopulation(Population population, IDatasetSource trainingData) {
+        evaluatePopulation(population, trainingData, null);
+    }
+
+    /**
+     * Evaluate a population where each individual only has to beat its rival, the individual at the same index of
+     * rivals, to be kept. Without rivals every individual competes with the whole population. With racing an
+     * individual is no longer scored once its error passes the fitness of its rival, or without one the worst of the
+     * populationSize best individuals already scored. The partial error of an aborted individual is kept as estimated
+     * fitness, greater than its cutoff, and never stored in the fitness cache.
+     * While subsampling, an estimate is never compared with an exact score: an individual whose batch estimate beats
+     * the exact fitness of its rival, or without one of the worst elite in the population, is scored again on the
+     * whole training set. Scores on the whole training set are never aborted, they are the exact fitness of elites.
      */
-    protected void evaluatePopulation(Population population, Dataset trainingData) {
-        population.parallelStream().forEach(individual -> NetworkTrainerBase.this.evaluateIndividual(individual, trainingData));
+    protected void evaluatePopulation(Population population, IDatasetSource trainingData, Population rivals) {
+        boolean subsampled = sampler != null;
+        boolean estimated = subsampled && trainingData != fullTrainingSet;
+
+        List<Integer> pending = new ArrayList<>();
+        for (int i = 0; i < population.size(); i++) {
+            WeightMatrix individual = population.get(i);
+            if (!individual.isFitnessValid()
+                    && (subsampled || fitnessCache == null || !fitnessCache.lookup(individual))) {
+                pending.add(i);
+            }
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        // Cutoffs are known after the cache lookups, on a batch they are in mean error per sample and the batch is a
+        // single dataset of known size, on the whole training set they are the summed error itself
+        double[] limits = new double[pending.size()];
+        Arrays.fill(limits, Double.POSITIVE_INFINITY);
+        if (racing && (estimated || !subsampled)) {
+            double survival = survivalCutoff(population);
+            double scale = estimated ? ((Dataset) trainingData).size() : 1;
+            for (int i = 0; i < limits.length; i++) {
+                limits[i] = (rivals == null ? survival : rivals.get(pending.get(i)).getFitness()) * scale;
+            }
+        }
+
+        double[] fitness = new double[pending.size()];
+        long samples = 0;
+        try (IChunkIterator chunks = trainingData.chunks()) {
+            while (chunks.hasNext()) {
+                Dataset chunk = chunks.next();
+                samples += chunk.size();
+                IntStream.range(0, pending.size())
+                        .parallel()
+                        .filter(i -> fitness[i] <= limits[i])
+                        .forEach(i -> fitness[i] += evaluator.evaluate(population.get(pending.get(i)).getGenes(), chunk,
+                                0, chunk.size(), limits[i] - fitness[i]));
+                // Once every individual has been aborted the rest of the data cannot change the outcome
+                if (IntStream.range(0, pending.size()).allMatch(i -> fitness[i] > limits[i])) {
+                    break;
+                }
+            }
+        }
+        for (int i = 0; i < fitness.length; i++) {
+            WeightMatrix individual = population.get(pending.get(i));
+            if (fitness[i] > limits[i]) {
+                individual.setEstimatedFitness(estimated ? fitness[i] / samples : fitness[i]);
+            } else if (estimated) {
+                individual.setEstimatedFitness(fitness[i] / samples);
+            } else if (subsampled) {
+                individual.setFitness(fitness[i] / samples);
+            } else {
+                individual.setFitness(fitness[i]);
+                if (fitnessCache != null) {
+                    fitnessCache.store(individual);
+                }
+            }
+        }
+        evaluationNanos.add(System.nanoTime() - start);
+        evaluations.add(pending.size());
+
+        if (estimated) {
+            Population challengers = new Population();
+            double eliteCutoff = exactCutoff(population, Integer.MAX_VALUE);
+            for (int i = 0; i < fitness.length; i++) {
+                WeightMatrix individual = population.get(pending.get(i));
+                WeightMatrix rival = rivals == null ? null : rivals.get(pending.get(i));
+                double cutoff = rival == null ? eliteCutoff
+                        : rival.isFitnessValid() && !rival.isFitnessEstimated() ? rival.getFitness()
+                        : Double.NEGATIVE_INFINITY;
+                if (fitness[i] <= limits[i] && individual.getFitness() < cutoff) {
+                    individual.invalidateFitness();
+                    challengers.add(individual);
+                }
+            }
+            evaluatePopulation(challengers, fullTrainingSet);
+        }
     }
 
     /**
-     * Evaluate the performance of a single individual on a provided dataset.
-     * Using the provided individual, map over the elements of the training set and sum the output errors.
-     * Set the fitness of the individual.
+     * Exact fitness of the worst of the count best individuals scored on the whole training set, negative infinity
+     * when there are none
      */
-    protected void evaluateIndividual(WeightMatrix individual, Dataset trainingSet) {
-        individual.setFitness(trainingSet
-                .parallelStream()
-                .mapToDouble(sample -> meanSquaredError(individual.buildNetwork().execute(sample.inputs), sample.outputs))
-                .sum());
+    private double exactCutoff(Population population, int count) {
+        double[] exact = population.stream()
+                .filter(individual -> individual.isFitnessValid() && !individual.isFitnessEstimated())
+                .mapToDouble(WeightMatrix::getFitness)
+                .sorted()
+                .toArray();
+        return exact.length == 0 || count == 0 ? Double.NEGATIVE_INFINITY : exact[Math.min(count, exact.length) - 1];
     }
 
     /**
-     * Evaluate a population according to the provided validation set. Print the error to stdout.
+     * Fitness of the worst individual that would survive if only the individuals already scored were kept, infinite
+     * while fewer than populationSize have been scored
+     */
+    private double survivalCutoff(Population population) {
+        double[] scored = population.stream()
+                .filter(WeightMatrix::isFitnessValid)
+                .mapToDouble(WeightMatrix::getFitness)
+                .sorted()
+                .toArray();
+        return scored.length >= populationSize ? scored[populationSize - 1] : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Evaluate a population according to the provided validation set and record the generation's telemetry.
+     * The individual with the lowest validation error is recorded as the generation best and its error returned.
+     * Survivors keep the validation error measured when they were first validated, so only newcomers are scored.
      */
     protected double validatePopulation(Population population, Dataset validationSet, int generation) {
-        // Calculate the total validation error of the population
-        double error = population
-                .parallelStream()
-                .mapToDouble(individual -> validationSet
-                        .stream()
-                        .mapToDouble(sample -> meanSquaredError(individual.buildNetwork().execute(sample.inputs), sample.outputs))
-                        .sum() / validationSet.size())
-                .sum();
-        // Print to stdout
-        System.out.println("Generation: " + generation + "\t\t" + "Validation set error: " + error / validationSet.size());
-        return error;
+        // Calculate the validation error of each individual
+        double[] errors = new double[population.size()];
+        IntStream.range(0, population.size())
+                .parallel()
+                .forEach(i -> {
+                    WeightMatrix individual = population.get(i);
+                    if (Double.isNaN(individual.getValidationError())) {
+                        individual.setValidationError(evaluator.evaluate(individual, validationSet) / validationSet.size());
+                    }
+                    errors[i] = individual.getValidationError();
+                });
+
+        // Average the error of the population and find its best member
+        double error = 0.0;
+        int best = 0;
+        for (int i = 0; i < errors.length; i++) {
+            error += errors[i];
+            if (errors[i] < errors[best]) {
+                best = i;
+            }
+        }
+        generationBest = population.get(best);
+        recordGeneration(generation, errors[best], error / errors.length);
+        return errors[best];
+    }
+
+    /**
+     * Publish the errors of a generation along with the time spent evaluating and reproducing since the last record.
+     * Reproduction time is the time spent in nextGeneration that was not spent evaluating.
+     * The listener is then told of the generation, and if it asks to stop, shouldContinue ends the run.
+     */
+    protected void recordGeneration(int generation, double bestError, double meanError) {
+        long now = System.nanoTime();
+        long evaluationTime = evaluationNanos.sumThenReset();
+        long generationTime = generationNanos.sumThenReset();
+        long count = evaluations.sumThenReset();
+        progress.addEvaluations(count);
+        if (telemetry != null) {
+            double evaluationsPerSecond = generation == 0 ? 0.0 : count * 1e9 / Math.max(1, now - lastRecord);
+            telemetry.record(getClass().getSimpleName(), runs - 1, generation, bestError, meanError, evaluationTime,
+                    Math.max(0, generationTime - evaluationTime), count, evaluationsPerSecond);
+        }
+        lastRecord = now;
+        if (listener != null && !listener.onGeneration(generation, bestError)) {
+            stopRequested = true;
+        }
     }
 
     /**
@@ -90,41 +671,48 @@ public class NetworkTrainerBase implements INetworkTrainer {
     protected double meanSquaredError(double[] networkOutputs, double[] expectedOutputs) {
         assert networkOutputs.length == expectedOutputs.length;
 
-        // Calculate the sum over the squared error for each output value
-        double errorSum = IntStream.range(0, networkOutputs.length)
-                .parallel()
-                .mapToDouble(i -> Math.pow(networkOutputs[i] - expectedOutputs[i], 2))
-                .sum();
-
-        // Normalize and return error
-        return errorSum / (networkOutputs.length * expectedOutputs.length);
+        return FitnessEvaluator.meanSquaredError(networkOutputs, expectedOutputs);
     }
 
     /**
-     * Record the starting time and reset counters.
+     * Record the starting time, reset counters and split off the random source of the new run.
      */
     protected void startTimer() {
         this.startTime = System.nanoTime();
-        this.cutoffCounter = 0;
-        this.runningAvg = 9999;
+        this.runRandom = randomSource.split(runs++);
+        this.progress.start((long) startTime);
+        this.stoppingPolicy.reset();
+        this.generationBest = null;
+        this.bestNetwork = null;
+        this.generationNanos.reset();
+        this.evaluationNanos.reset();
+        this.evaluations.reset();
+        this.lastRecord = System.nanoTime();
+        this.stopRequested = false;
     }
 
     /**
-     * Terminate if the average change in performance over the last 5 generations is less than 0.5%
+     * Record the validation error of a generation, snapshot the network if it is the best of the run, and ask the
+     * stopping policy, and any listener, whether the run should go on
      */
     protected boolean shouldContinue(double validationError, int generation, INeuralNetwork network) {
-        if (validationError < bestError) {
-            bestGeneration = generation;
-            bestError = validationError;
-            bestNetwork = network.constructWeightMatrix();
+        if (progress.update(generation, validationError)) {
+            saveBest(network);
         }
-        runningAvg = ((runningAvg * 9) + validationError) / 10;
-        if ((runningAvg - validationError) / validationError < 0.005) {
-            cutoffCounter++;
+        return !stopRequested && !stoppingPolicy.shouldStop(progress);
+    }
+
+    /**
+     * Copy the best individual of the generation into the run's best network buffer
+     */
+    protected void saveBest(INeuralNetwork network) {
+        if (generationBest == null) {
+            bestNetwork = network.constructWeightMatrix();
+        } else if (bestNetwork == null) {
+            bestNetwork = generationBest.copy();
         } else {
-            cutoffCounter = 0;
+            bestNetwork.copyFrom(generationBest);
         }
-        return generation < 5000 && cutoffCounter < 20;
     }
 
     /**
@@ -152,6 +740,11 @@ public class NetworkTrainerBase implements INetworkTrainer {
         }
         output.append(convergenceTime);
         output.append(" seconds.\n");
+        output.append("Random seed: ");
+        output.append(randomSource.getSeed());
+        output.append(", run ");
+        output.append(runs - 1);
+        output.append("\n");
         System.out.println(output.toString());
     }
 }
@@ -1,4 +1,5 @@
 public enum NetworkType {
     MultiLayerPerceptron,
+    FlatMultiLayerPerceptron,
     RadialBasisNetwork
 }
\ No newline at end of file
@@ -1,61 +1,99 @@
-import java.util.ArrayList;
+import java.util.AbstractList;
 import java.util.List;
-import java.util.Random;
+import java.util.RandomAccess;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 
 /**
  * Neuron class stores values weights and activations of a single neuron in the network and provides functionality
  * to compute the output of the that neuron.
+ * The weights and bias are kept as one primitive row [w0 .. wn-1, bias] which may either be owned by the neuron or be a
+ * slice of a larger array shared by the whole network.
  */
 public class Neuron {
 
     public final int size;
 
-    private List<Double> weights;
-    private List<Double> previousWeights;
+    private final double[] parameters;
+    private final int offset;
+    private final List<Double> weights;
+    private final double[] previousWeights;
     private double activation;
     private double delta;
-    private double bias;
+    // Number of changes to the weights and bias, so a network can tell whether a copy of them is still current
+    private long modifications;
 
     private IActivationFunction activationFunction;
 
     // Feed forward network constructor
     public Neuron(int connections, IActivationFunction activationFunction) {
+        this(connections, activationFunction, ThreadLocalRandom.current());
+    }
+
+    // Feed forward network constructor drawing the initial weights from the supplied generator
+    public Neuron(int connections, IActivationFunction activationFunction, RandomGenerator random) {
+        this(connections, activationFunction, new double[connections + 1], 0);
+        this.initializeWeights(random);
+    }
+
+    // Construct a neuron whose weights and bias live in the supplied array starting at offset, leaving them untouched
+    Neuron(int connections, IActivationFunction activationFunction, double[] parameters, int offset) {
         this.size = connections;
         this.activationFunction = activationFunction;
-        this.initializeWeights();
+        this.parameters = parameters;
+        this.offset = offset;
+        this.weights = new WeightView();
+        this.previousWeights = new double[connections];
+        System.arraycopy(this.parameters, offset, this.previousWeights, 0, size);
     }
 
     // Set up connection weights, set to random value between [-0.5, 0.5] or all 1 depending on flag
-    private void initializeWeights() {
-        Random random = new Random(System.nanoTime());
-        this.weights = new ArrayList<>(size);
+    void initializeWeights(RandomGenerator random) {
         for (int i = 0; i < size; i++) {
-            this.weights.add(random.nextDouble() - 0.00005);
+            this.parameters[offset + i] = random.nextDouble() - 0.00005;
         }
-        this.bias = random.nextDouble() - 0.00005;
-        this.previousWeights = new ArrayList<>(this.weights);
+        this.parameters[offset + size] = random.nextDouble() - 0.00005;
+        System.arraycopy(this.parameters, offset, this.previousWeights, 0, size);
+        modifications++;
     }
 
     // Calculate the activation of the neuron given a set of inputs, apply activation function if flag is set
     public double execute(double[] inputs, boolean shouldUseActivationFunction) {
-        double outputSum = bias;
+        double outputSum = parameters[offset + size];
         for (int i = 0; i < size; i++) {
-            outputSum += inputs[i] * weights.get(i);
+            outputSum += inputs[i] * parameters[offset + i];
         }
         this.activation = shouldUseActivationFunction ? this.activationFunction.compute(outputSum) : outputSum;
         return activation;
     }
 
     public double getWeight(int index) {
-        return this.weights.get(index);
+        return this.parameters[offset + index];
     }
 
+    // Live view of the weights, writes go straight through to the underlying parameter row
     public List<Double> getWeights() {
         return this.weights;
     }
 
+    // Copy the supplied weights into this neuron's parameter row
     public void setWeights(List<Double> weights) {
-        this.weights = weights;
+        assert weights.size() == size : "Invalid weight count";
+
+        for (int i = 0; i < size; i++) {
+            this.parameters[offset + i] = weights.get(i);
+        }
+        modifications++;
+    }
+
+    // Copy a [weights..., bias] row from the supplied array into this neuron
+    void setParameters(double[] source, int sourceOffset) {
+        System.arraycopy(source, sourceOffset, this.parameters, offset, size + 1);
+        modifications++;
+    }
+
+    public double getBias() {
+        return this.parameters[offset + size];
     }
 
     public double getOutput() {
@@ -71,17 +109,54 @@ public class Neuron {
     }
 
     public void updateBias(double increment) {
-        this.bias += increment;
+        this.parameters[offset + size] += increment;
+        modifications++;
     }
 
     // Set the previous weight as the current weight and increment the current weight by the supplied value
     public void updateWeight(int index, double increment) {
-        double previousWeight = this.weights.get(index);
-        this.previousWeights.set(index, previousWeight);
-        this.weights.set(index, previousWeight + increment);
+        double previousWeight = this.parameters[offset + index];
+        this.previousWeights[index] = previousWeight;
+        this.parameters[offset + index] = previousWeight + increment;
+        modifications++;
+    }
+
+    long getModifications() {
+        return this.modifications;
     }
 
     public double getPreviousWeight(int index) {
-        return this.previousWeights.get(index);
+        return this.previousWeights[index];
+    }
+
+    /**
+     * Boxed list view over the weight portion of the parameter row
+     */
+    private class WeightView extends AbstractList<Double> implements RandomAccess {
+
+        @Override
+        public Double get(int index) {
+            return parameters[offset + checkIndex(index)];
+        }
+
+        @Override
+        public Double set(int index, Double value) {
+            double previous = parameters[offset + checkIndex(index)];
+            parameters[offset + index] = value;
+            modifications++;
+            return previous;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        private int checkIndex(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return index;
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,19 @@
+/**
+ * Stop once the validation error has not reached a new best for patience generations, or epochs
+ */
+public class PatienceStoppingPolicy implements IStoppingPolicy {
+
+    private final int patience;
+
+    public PatienceStoppingPolicy(int patience) {
+        if (patience < 1) {
+            throw new IllegalArgumentException("Patience must be at least one generation!");
+        }
+        this.patience = patience;
+    }
+
+    @Override
+    public boolean shouldStop(TrainingProgress progress) {
+        return progress.getGeneration() - progress.getBestGeneration() >= patience;
+    }
+}
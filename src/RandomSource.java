@@ -0,0 +1,64 @@
+import java.util.random.RandomGenerator;
+import java.util.random.RandomGeneratorFactory;
+
+/**
+ * Reproducible source of independent random number generators.
+ * A source is a seed together with a generator algorithm, SplittableRandom by default, though any algorithm known to
+ * RandomGeneratorFactory may be plugged in. Child sources and generators are derived from the seed and an integer key
+ * alone, never from the state of another generator, so work spread across threads draws exactly the same numbers
+ * however it is scheduled, no generator is ever shared between threads, and a whole run can be repeated from its seed.
+ */
+public class RandomSource {
+
+    public static final String DEFAULT_ALGORITHM = "SplittableRandom";
+
+    private final long seed;
+    private final RandomGeneratorFactory<RandomGenerator> factory;
+
+    public RandomSource(long seed) {
+        this(seed, DEFAULT_ALGORITHM);
+    }
+
+    public RandomSource(long seed, String algorithm) {
+        this(seed, RandomGeneratorFactory.of(algorithm));
+    }
+
+    private RandomSource(long seed, RandomGeneratorFactory<RandomGenerator> factory) {
+        this.seed = seed;
+        this.factory = factory;
+    }
+
+    /**
+     * Derive an independent source for the part of the work identified by key, such as one island or one generation
+     */
+    public RandomSource split(long key) {
+        return new RandomSource(mix(seed, key), factory);
+    }
+
+    /**
+     * Create the generator for the stream identified by key, such as one individual. The generator must only be used
+     * by one thread at a time.
+     */
+    public RandomGenerator generator(long key) {
+        return factory.create(mix(seed, key));
+    }
+
+    public long getSeed() {
+        return this.seed;
+    }
+
+    /**
+     * Name of the generator algorithm, the seed and algorithm together recreate the source
+     */
+    public String getAlgorithm() {
+        return this.factory.name();
+    }
+
+    // Combine the seed with a key through the SplitMix64 finalizer so neighbouring keys give unrelated seeds
+    private static long mix(long seed, long key) {
+        long z = seed + (key + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
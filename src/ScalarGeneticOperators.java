@@ -0,0 +1,102 @@
+import java.util.random.RandomGenerator;
+
+/**
+ * Genetic operators implemented with scalar loops, used whenever the Vector API is unavailable.
+ * Random numbers are always drawn here, one gene at a time, into a per-thread buffer before the operator's arithmetic
+ * runs over whole arrays. VectorGeneticOperators only replaces that arithmetic, so both produce identical offspring
+ * from the same random sequence.
+ */
+class ScalarGeneticOperators implements IGeneticOperators {
+
+    // Below this crossover rate the crossed genes are found by skipping, above it every gene draws a number
+    private static final double SPARSE_CROSSOVER_RATE = 0.25;
+
+    private final ThreadLocal<double[]> draws = ThreadLocal.withInitial(() -> new double[0]);
+
+    @Override
+    public void uniformCrossover(double[][] parents, double[] child, RandomGenerator random) {
+        double[] choices = draws(child.length);
+        for (int i = 0; i < child.length; i++) {
+            choices[i] = random.nextInt(parents.length);
+        }
+        selectGenes(parents, choices, child);
+    }
+
+    /**
+     * Mutated genes are found by sampling the geometric gaps between them instead of drawing a uniform number for
+     * every gene, so the cost is proportional to the number of mutations rather than the length of the genome
+     */
+    @Override
+    public void gaussianMutation(double[] genes, int length, double rate, double scale, int sigmaOffset,
+                                 RandomGenerator random) {
+        if (rate <= 0) {
+            return;
+        }
+
+        double logSkip = Math.log(1 - Math.min(rate, 1));
+        for (long i = skip(random, logSkip); i < length; i += 1 + skip(random, logSkip)) {
+            int gene = (int) i;
+            double step = sigmaOffset < 0 ? scale : genes[sigmaOffset + gene] * scale;
+            genes[gene] += random.nextGaussian() * step;
+        }
+    }
+
+    /**
+     * Low crossover rates copy the base vector and only visit the crossed genes, found by geometric skipping as in
+     * gaussianMutation. Higher rates draw a uniform number per gene and combine whole arrays.
+     */
+    @Override
+    public void differentialCrossover(double[] a, double[] b, double[] c, double beta, double crossoverRate, double[] child,
+                                      RandomGenerator random) {
+        if (crossoverRate < SPARSE_CROSSOVER_RATE) {
+            System.arraycopy(a, 0, child, 0, child.length);
+            if (crossoverRate <= 0) {
+                return;
+            }
+            double logSkip = Math.log(1 - crossoverRate);
+            for (long i = skip(random, logSkip); i < child.length; i += 1 + skip(random, logSkip)) {
+                int gene = (int) i;
+                child[gene] = a[gene] + beta * (b[gene] - c[gene]);
+            }
+            return;
+        }
+
+        double[] uniforms = draws(child.length);
+        for (int i = 0; i < child.length; i++) {
+            uniforms[i] = random.nextDouble();
+        }
+        combine(a, b, c, beta, crossoverRate, uniforms, child);
+    }
+
+    /**
+     * Copy each gene of the child from the parent whose index is stored in choices
+     */
+    void selectGenes(double[][] parents, double[] choices, double[] child) {
+        for (int i = 0; i < child.length; i++) {
+            child[i] = parents[(int) choices[i]][i];
+        }
+    }
+
+    /**
+     * Apply the differential update to every gene whose uniform draw falls below the crossover rate
+     */
+    void combine(double[] a, double[] b, double[] c, double beta, double crossoverRate, double[] uniforms, double[] child) {
+        for (int i = 0; i < child.length; i++) {
+            child[i] = uniforms[i] < crossoverRate ? a[i] + beta * (b[i] - c[i]) : a[i];
+        }
+    }
+
+    // Number of genes skipped before the next mutation, geometrically distributed with log(1 - rate)
+    private static long skip(RandomGenerator random, double logSkip) {
+        return (long) Math.floor(Math.log(1 - random.nextDouble()) / logSkip);
+    }
+
+    private double[] draws(int length) {
+        double[] buffer = draws.get();
+        if (buffer.length < length) {
+            buffer = new double[length];
+            draws.set(buffer);
+        }
+        return buffer;
+    }
+}
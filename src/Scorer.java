@@ -0,0 +1,193 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Batch scoring of large files with a trained model.
+ * The calling thread streams rows from a .csv file, or a binary dataset which is memory mapped, and copies them into
+ * batches. A pool of workers runs the batched forward pass over each batch and formats its predictions, and the
+ * calling thread writes the formatted batches in input order through a buffered FileChannel. At most two batches per
+ * worker are in flight, so memory stays bounded however large the input is.
+ * Input files use the dataset format, a "features, classes" header then one row per sample. Any output columns are
+ * ignored, so unlabelled files may declare zero classes. Each output line holds the predictions for one input row.
+ * <p>
+ * Usage: java Scorer model input.csv|input.bin predictions.csv [-threads n] [-batch rows]
+ */
+public class Scorer {
+
+    private static final int DEFAULT_BATCH_ROWS = 4096;
+    private static final int OUTPUT_BUFFER_BYTES = 1 << 20;
+
+    public static void main(String[] args) {
+        if (args.length < 3) {
+            usage();
+        }
+        int threads = Runtime.getRuntime().availableProcessors();
+        int batchRows = DEFAULT_BATCH_ROWS;
+        for (int i = 3; i < args.length; i++) {
+            if (args[i].equals("-threads") && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-batch") && i + 1 < args.length) {
+                batchRows = Integer.parseInt(args[++i]);
+            } else {
+                usage();
+            }
+        }
+
+        long start = System.nanoTime();
+        long rows = score(Paths.get(args[0]), Paths.get(args[1]), Paths.get(args[2]), threads, batchRows);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println("Scored " + rows + " rows in " + seconds + " seconds, " + (long) (rows / seconds)
+                + " rows/second on " + threads + " threads.");
+    }
+
+    /**
+     * Score every row of the input with the model, writing one line of predictions per row to the output. Returns the
+     * number of rows scored.
+     */
+    public static long score(Path modelPath, Path inputPath, Path outputPath, int threads, int batchRows) {
+        if (threads < 1 || batchRows < 1) {
+            throw new IllegalArgumentException("Scoring needs at least one thread and one row per batch!");
+        }
+        // The model is small next to the input, a heap copy lets every worker use the tiled batch kernel
+        FlatMultiLayerPerceptron network = ModelFile.load(modelPath);
+        int[] dimensions = FlatMultiLayerPerceptron.getDimensions(network);
+        int features = dimensions[0];
+        int outputSize = dimensions[dimensions.length - 1];
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        ArrayDeque<Future<byte[]>> inFlight = new ArrayDeque<>(2 * threads);
+        long rows = 0;
+
+        try (IChunkIterator chunks = openInput(inputPath, batchRows);
+             FileChannel channel = FileChannel.open(outputPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(OUTPUT_BUFFER_BYTES);
+            while (chunks.hasNext()) {
+                Dataset chunk = chunks.next();
+                if (chunk.getFeatures() != features) {
+                    throw new IllegalArgumentException(inputPath + " has " + chunk.getFeatures()
+                            + " features but the model expects " + features + "!");
+                }
+
+                // Streamed chunks reuse their arrays, so each batch takes its own copy of the inputs
+                double[] inputs = new double[chunk.size() * features];
+                for (int i = 0; i < chunk.size(); i++) {
+                    chunk.copyInputs(i, inputs, i * features);
+                }
+                rows += chunk.size();
+
+                inFlight.add(executor.submit(() -> {
+                    Dataset batch = new Dataset(features, 0, inputs, new double[0]);
+                    return format(network.executeBatch(batch, null), batch.size(), outputSize);
+                }));
+                if (inFlight.size() == 2 * threads) {
+                    write(channel, buffer, inFlight.poll().get());
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                write(channel, buffer, inFlight.poll().get());
+            }
+            flush(channel, buffer);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Unable to write " + outputPath, ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Scoring was interrupted", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Scoring failed", ex.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        return rows;
+    }
+
+    /**
+     * Chunks of a .csv file are streamed, anything else is read as a memory mapped binary dataset
+     */
+    private static IChunkIterator openInput(Path inputPath, int batchRows) {
+        if (inputPath.getFileName().toString().endsWith(".csv")) {
+            return new StreamingDataset(new File(inputPath.toString()), batchRows).chunks();
+        }
+
+        Dataset dataset = DatasetFactory.mapBinary(inputPath);
+        return new IChunkIterator() {
+            private int start = 0;
+
+            @Override
+            public boolean hasNext() {
+                return start < dataset.size();
+            }
+
+            @Override
+            public Dataset next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Dataset chunk = dataset.subList(start, Math.min(dataset.size(), start + batchRows));
+                start += chunk.size();
+                return chunk;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    /**
+     * Format rows of outputs as comma separated lines
+     */
+    private static byte[] format(double[] outputs, int rows, int outputSize) {
+        StringBuilder text = new StringBuilder(rows * outputSize * 24);
+        for (int r = 0; r < rows; r++) {
+            for (int j = 0; j < outputSize; j++) {
+                if (j > 0) {
+                    text.append(", ");
+                }
+                text.append(outputs[r * outputSize + j]);
+            }
+            text.append('\n');
+        }
+        return text.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static void write(FileChannel channel, ByteBuffer buffer, byte[] bytes) throws IOException {
+        if (bytes.length > buffer.remaining()) {
+            flush(channel, buffer);
+        }
+        if (bytes.length > buffer.capacity()) {
+            ByteBuffer large = ByteBuffer.wrap(bytes);
+            while (large.hasRemaining()) {
+                channel.write(large);
+            }
+        } else {
+            buffer.put(bytes);
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static void usage() {
+        System.err.println("Usage: java Scorer model input.csv|input.bin predictions.csv [-threads n] [-batch rows]");
+        System.exit(1);
+    }
+}
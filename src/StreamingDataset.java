@@ -0,0 +1,327 @@
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.DoubleBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+
+/**
+ * Dataset source that streams a .csv file in fixed size chunks instead of loading it, so only two chunks of samples are
+ * ever held in memory regardless of the size of the file.
+ * Lines are read into a reusable character buffer and every value is parsed in place by parseNumber, no Strings are
+ * created for well formed numbers. Each chunk is a Dataset over reused arrays and stays valid until the chunk after
+ * the next one is read.
+ */
+public class StreamingDataset implements IDatasetSource {
+
+    private static final int BUFFER_CHARS = 1 << 16;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final File file;
+    private final int chunkRows;
+    private final int features;
+    private final int classes;
+
+    public StreamingDataset(File file, int chunkRows) {
+        if (chunkRows < 1) {
+            throw new IllegalArgumentException("Chunks must hold at least one row!");
+        }
+        this.file = file;
+        this.chunkRows = chunkRows;
+
+        // Read the feature and class counts from the header
+        try (ChunkIterator header = new ChunkIterator(1, 0)) {
+            int[] counts = header.readHeader();
+            this.features = counts[0];
+            this.classes = counts[1];
+        }
+    }
+
+    /**
+     * Start a new pass over the file. The file is closed once the last chunk has been read, or by closing the iterator.
+     */
+    @Override
+    public IChunkIterator chunks() {
+        ChunkIterator iterator = new ChunkIterator(features, classes);
+        iterator.readHeader();
+        return iterator;
+    }
+
+    public int getFeatures() {
+        return features;
+    }
+
+    public int getClasses() {
+        return classes;
+    }
+
+    /**
+     * Parse a decimal number from chars[start, end). Numbers with at most 15 significant digits and a decimal exponent
+     * within +-22 are computed exactly with a single multiplication or division, anything else falls back to
+     * Double.parseDouble so the result always matches it.
+     */
+    static double parseNumber(char[] chars, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (chars[i] == '-' || chars[i] == '+')) {
+            negative = chars[i] == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int significantDigits = 0;
+        int exponent = 0;
+        boolean hasDigits = false;
+
+        // Integer part
+        for (; i < end && chars[i] >= '0' && chars[i] <= '9'; i++) {
+            hasDigits = true;
+            if (mantissa != 0 || chars[i] != '0') {
+                significantDigits++;
+            }
+            if (significantDigits <= 18) {
+                mantissa = mantissa * 10 + (chars[i] - '0');
+            } else {
+                exponent++;
+            }
+        }
+
+        // Fractional part
+        if (i < end && chars[i] == '.') {
+            for (i++; i < end && chars[i] >= '0' && chars[i] <= '9'; i++) {
+                hasDigits = true;
+                if (mantissa != 0 || chars[i] != '0') {
+                    significantDigits++;
+                }
+                if (significantDigits <= 18) {
+                    mantissa = mantissa * 10 + (chars[i] - '0');
+                    exponent--;
+                }
+            }
+        }
+
+        // Exponent
+        if (hasDigits && i < end && (chars[i] == 'e' || chars[i] == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < end && (chars[i] == '-' || chars[i] == '+')) {
+                negativeExponent = chars[i] == '-';
+                i++;
+            }
+            int value = 0;
+            boolean hasExponentDigits = false;
+            for (; i < end && chars[i] >= '0' && chars[i] <= '9'; i++) {
+                hasExponentDigits = true;
+                value = Math.min(value * 10 + (chars[i] - '0'), 100000);
+            }
+            if (!hasExponentDigits) {
+                i = -1;
+            }
+            exponent += negativeExponent ? -value : value;
+        }
+
+        if (hasDigits && i == end && significantDigits <= 15 && exponent >= -22 && exponent <= 22) {
+            double value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+            return negative ? -value : value;
+        }
+        return Double.parseDouble(new String(chars, start, end - start));
+    }
+
+    /**
+     * Reads the file line by line into a reusable buffer, filling alternating pairs of input and output arrays
+     */
+    private class ChunkIterator implements IChunkIterator {
+
+        private final Reader reader;
+        private final char[] buffer = new char[BUFFER_CHARS];
+        private int position;
+        private int limit;
+
+        private char[] line = new char[256];
+        private int lineLength;
+
+        private final double[][] inputs;
+        private final double[][] outputs;
+        private int current;
+
+        private Dataset pending;
+        private boolean finished;
+
+        ChunkIterator(int features, int classes) {
+            try {
+                this.reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8);
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Unable to open " + file, ex);
+            }
+            this.inputs = new double[][]{new double[chunkRows * features], new double[chunkRows * features]};
+            this.outputs = new double[][]{new double[chunkRows * classes], new double[chunkRows * classes]};
+        }
+
+        /**
+         * Consume the header line, returning the feature and class counts it declares
+         */
+        int[] readHeader() {
+            if (!readLine()) {
+                throw new IllegalArgumentException(file + " is empty!");
+            }
+            int[] counts = new int[2];
+            int i = 0;
+            for (int field = 0; field < counts.length; field++) {
+                int start = fieldStart(i, field == 0);
+                int end = start < 0 ? start : fieldEnd(start);
+                if (start == end) {
+                    throw new IllegalArgumentException("Malformed header in " + file);
+                }
+                counts[field] = (int) parseNumber(line, start, end);
+                i = end;
+            }
+            return counts;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (pending == null && !finished) {
+                pending = readChunk();
+            }
+            return pending != null;
+        }
+
+        @Override
+        public Dataset next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Dataset chunk = pending;
+            pending = null;
+            return chunk;
+        }
+
+        @Override
+        public void close() {
+            finished = true;
+            try {
+                reader.close();
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Unable to close " + file, ex);
+            }
+        }
+
+        /**
+         * Parse up to chunkRows rows into the next pair of arrays, closing the file once it is exhausted
+         */
+        private Dataset readChunk() {
+            double[] chunkInputs = inputs[current];
+            double[] chunkOutputs = outputs[current];
+            current ^= 1;
+
+            int rows = 0;
+            while (rows < chunkRows && readLine()) {
+                if (skipBlanks(0) == lineLength) {
+                    continue;
+                }
+                int i = 0;
+                for (int j = 0; j < features; j++) {
+                    i = parseField(i, j == 0, chunkInputs, rows * features + j);
+                }
+                for (int j = 0; j < classes; j++) {
+                    i = parseField(i, features == 0 && j == 0, chunkOutputs, rows * classes + j);
+                }
+                rows++;
+            }
+
+            if (rows < chunkRows) {
+                close();
+            }
+            if (rows == 0) {
+                return null;
+            }
+            return new Dataset(features, classes,
+                    DoubleBuffer.wrap(chunkInputs, 0, rows * features),
+                    DoubleBuffer.wrap(chunkOutputs, 0, rows * classes));
+        }
+
+        /**
+         * Parse the field after position i, returning the position just past it. Every field but the first of the
+         * line must be preceded by a single comma, and no field may be empty.
+         */
+        private int parseField(int i, boolean first, double[] destination, int index) {
+            int start = fieldStart(i, first);
+            int end = start < 0 ? start : fieldEnd(start);
+            if (start == end) {
+                throw new IllegalArgumentException("Malformed row in " + file + ": " + new String(line, 0, lineLength));
+            }
+            destination[index] = parseNumber(line, start, end);
+            return end;
+        }
+
+        /**
+         * Skip the blanks and, unless it is the first field of the line, the one comma in front of the field after
+         * position i. Returns -1 when the comma is missing.
+         */
+        private int fieldStart(int i, boolean first) {
+            i = skipBlanks(i);
+            if (first) {
+                return i;
+            }
+            if (i == lineLength || line[i] != ',') {
+                return -1;
+            }
+            return skipBlanks(i + 1);
+        }
+
+        private int skipBlanks(int i) {
+            while (i < lineLength && (line[i] == ' ' || line[i] == '\t')) {
+                i++;
+            }
+            return i;
+        }
+
+        private int fieldEnd(int i) {
+            while (i < lineLength && line[i] != ',' && line[i] != ' ' && line[i] != '\t') {
+                i++;
+            }
+            return i;
+        }
+
+        /**
+         * Copy the next line, without its terminator, into the line buffer. Returns false at the end of the file.
+         */
+        private boolean readLine() {
+            lineLength = 0;
+            boolean read = false;
+            while (true) {
+                if (position == limit) {
+                    try {
+                        limit = reader.read(buffer, 0, buffer.length);
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException("Unable to read " + file, ex);
+                    }
+                    position = 0;
+                    if (limit <= 0) {
+                        limit = 0;
+                        return read;
+                    }
+                }
+                read = true;
+                char c = buffer[position++];
+                if (c == '\n') {
+                    return true;
+                }
+                if (c != '\r') {
+                    if (lineLength == line.length) {
+                        char[] larger = new char[line.length * 2];
+                        System.arraycopy(line, 0, larger, 0, lineLength);
+                        line = larger;
+                    }
+                    line[lineLength++] = c;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,16 @@
+/**
+ * Stop as soon as the validation error is at or below a target
+ */
+public class TargetErrorStoppingPolicy implements IStoppingPolicy {
+
+    private final double targetError;
+
+    public TargetErrorStoppingPolicy(double targetError) {
+        this.targetError = targetError;
+    }
+
+    @Override
+    public boolean shouldStop(TrainingProgress progress) {
+        return progress.getBestError() <= targetError;
+    }
+}
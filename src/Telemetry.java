@@ -0,0 +1,133 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Ring buffer of training records that are written to a set of sinks on a background thread, so training never waits
+ * on file or console I/O.
+ * Records are copied into preallocated slots, recording does not allocate and only briefly locks out other trainers
+ * recording into the same buffer. A daemon writer thread drains the buffer into every sink and flushes them whenever
+ * it catches up. When the writer falls a full buffer behind new records are dropped rather than blocking training,
+ * the number lost is reported by getDropped.
+ */
+public final class Telemetry implements AutoCloseable {
+
+    private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+
+    private final TrainingRecord[] slots;
+    private final int mask;
+    private final List<ITelemetrySink> sinks;
+
+    // Records published by trainers and records written by the writer thread, the difference is the backlog
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final Thread writer;
+    private volatile boolean closed;
+
+    /**
+     * Buffer up to capacity records, rounded up to a power of two, in front of the sinks
+     */
+    public Telemetry(int capacity, ITelemetrySink... sinks) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Telemetry must buffer at least one record!");
+        }
+        this.slots = new TrainingRecord[capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = new TrainingRecord();
+        }
+        this.mask = slots.length - 1;
+        this.sinks = Arrays.asList(sinks);
+
+        this.writer = new Thread(this::drain, "telemetry-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Publish one record, dropping it if the writer thread is a full buffer behind
+     */
+    public synchronized void record(String trainer, int run, int generation, double bestError, double meanError,
+                                    long evaluationNanos, long reproductionNanos, long evaluations,
+                                    double evaluationsPerSecond) {
+        long sequence = published.get();
+        if (closed || sequence - written.get() == slots.length) {
+            dropped.incrementAndGet();
+            return;
+        }
+        slots[(int) (sequence & mask)].set(trainer, run, generation, bestError, meanError, evaluationNanos,
+                reproductionNanos, evaluations, evaluationsPerSecond);
+        published.set(sequence + 1);
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Write every record published so far, then stop the writer thread and close the sinks
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        for (ITelemetrySink sink : sinks) {
+            try {
+                sink.close();
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Unable to close telemetry sink", ex);
+            }
+        }
+    }
+
+    /**
+     * Writer thread loop, sleeps while the buffer is empty and exits once closed and drained
+     */
+    private void drain() {
+        while (true) {
+            boolean closing = closed;
+            long sequence = written.get();
+            long available = published.get();
+            if (sequence == available) {
+                if (closing) {
+                    return;
+                }
+                LockSupport.parkNanos(this, IDLE_NANOS);
+                continue;
+            }
+
+            try {
+                for (; sequence < available; sequence++) {
+                    TrainingRecord record = slots[(int) (sequence & mask)];
+                    for (ITelemetrySink sink : sinks) {
+                        sink.write(record);
+                    }
+                    // Release the slot back to the trainers
+                    written.set(sequence + 1);
+                }
+                for (ITelemetrySink sink : sinks) {
+                    sink.flush();
+                }
+            } catch (IOException ex) {
+                // Losing telemetry must never stop training, skip past the records that could not be written
+                dropped.addAndGet(available - sequence);
+                written.set(available);
+            }
+        }
+    }
+}
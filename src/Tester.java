@@ -1,9 +1,9 @@
 import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.stream.IntStream;
+import java.util.Map;
 
 /**
  * Tester class provides a means to initialize and train neural networks
@@ -12,6 +12,10 @@ import java.util.stream.IntStream;
 public class Tester {
 
     private static final DatasetType datasetType = DatasetType.Energy;
+    private static final String modelPath = null;    // File testOne saves the trained network to, null does not save
+
+    // Progress of the cross validation jobs, always shown on the console even while the results go to a file
+    private static final PrintStream console = new PrintStream(new FileOutputStream(FileDescriptor.out), true);
 
     public static void main(String[] args) {
         //setFileOut();
@@ -21,104 +25,44 @@ public class Tester {
     }
 
     private static void testOne(Dataset dataset, INetworkTrainer trainer) {
-        trainer.train(NetworkFactory.buildNewNetwork(NetworkType.MultiLayerPerceptron), dataset);
+        INeuralNetwork network = trainer.train(NetworkFactory.buildNewNetwork(NetworkType.MultiLayerPerceptron), dataset);
+        if (modelPath != null) {
+            ModelFile.write(network, Paths.get(modelPath));
+        }
     }
 
     private static void testAll(Dataset dataset) {
-        List<INetworkTrainer> trainers = new ArrayList<>();
-        trainers.add(NetworkFactory.buildNetworkTrainer(NetworkTrainerType.GANetworkTrainer));
-        trainers.add(NetworkFactory.buildNetworkTrainer(NetworkTrainerType.ESNetworkTrainer));
-        trainers.add(NetworkFactory.buildNetworkTrainer(NetworkTrainerType.DENetworkTrainer));
-        trainers.add(NetworkFactory.buildNetworkTrainer(NetworkTrainerType.BPNetworkTrainer));
-        crossValidate(trainers, dataset);
+        crossValidate(dataset, NetworkTrainerType.GANetworkTrainer, NetworkTrainerType.ESNetworkTrainer,
+                NetworkTrainerType.DENetworkTrainer, NetworkTrainerType.BPNetworkTrainer);
     }
 
 
     /**
-     * Execute a 5x2 cross validation comparing each of the trainers provided
+     * Execute a 5x2 cross validation comparing each of the trainers provided, every run is trained in parallel on a
+     * trainer and network of its own
      */
-    public static void crossValidate(List<INetworkTrainer> trainers, Dataset dataset) {
-        List<Double> ESErrors = new ArrayList<>();
-        List<Double> DEErrors = new ArrayList<>();
-        List<Double> GAErrors = new ArrayList<>();
-        List<Double> BPErrors = new ArrayList<>();
-
-        for (int k = 0; k < 5; k++) {
-            dataset.shuffle();
-            Dataset testSet = dataset.getTestingSet();
-            Dataset trainSet = dataset.getTrainingSet();
-
-            GAErrors.addAll(computeFold(trainSet, testSet, NetworkFactory.buildNewNetwork(NetworkType.MultiLayerPerceptron), trainers.get(0)));
-            logStep(k, NetworkTrainerType.GANetworkTrainer);
-            ESErrors.addAll(computeFold(trainSet, testSet, NetworkFactory.buildNewNetwork(NetworkType.MultiLayerPerceptron), trainers.get(1)));
-            logStep(k, NetworkTrainerType.ESNetworkTrainer);
-            DEErrors.addAll(computeFold(trainSet, testSet, NetworkFactory.buildNewNetwork(NetworkType.MultiLayerPerceptron), trainers.get(2)));
-            logStep(k, NetworkTrainerType.DENetworkTrainer);
-            BPErrors.addAll(computeFold(trainSet, testSet, NetworkFactory.buildNewNetwork(NetworkType.MultiLayerPerceptron), trainers.get(3)));
-            logStep(k, NetworkTrainerType.BPNetworkTrainer);
-
-            //training set and test set are swapped
-            GAErrors.addAll(computeFold(testSet, trainSet, NetworkFactory.buildNewNetwork(NetworkType.MultiLayerPerceptron), trainers.get(0)));
-            logStep(k, NetworkTrainerType.GANetworkTrainer);
-            ESErrors.addAll(computeFold(testSet, trainSet, NetworkFactory.buildNewNetwork(NetworkType.MultiLayerPerceptron), trainers.get(1)));
-            logStep(k, NetworkTrainerType.ESNetworkTrainer);
-            DEErrors.addAll(computeFold(testSet, trainSet, NetworkFactory.buildNewNetwork(NetworkType.MultiLayerPerceptron), trainers.get(2)));
-            logStep(k, NetworkTrainerType.DENetworkTrainer);
-            BPErrors.addAll(computeFold(testSet, trainSet, NetworkFactory.buildNewNetwork(NetworkType.MultiLayerPerceptron), trainers.get(3)));
-            logStep(k, NetworkTrainerType.BPNetworkTrainer);
+    public static void crossValidate(Dataset dataset, NetworkTrainerType... trainers) {
+        Map<NetworkTrainerType, double[]> errors = NetworkFactory.buildCrossValidation(trainers)
+                .run(dataset, Tester::logStep);
+
+        for (NetworkTrainerType trainer : trainers) {
+            double mean = calcMean(errors.get(trainer));
+            double SD = calcStandardDeviation(mean, errors.get(trainer));
+            printStats(mean, SD, trainer);
         }
-
-        double mean = calcMean(GAErrors);
-        double SD = calcStandardDeviation(mean, GAErrors);
-        printStats(mean, SD, NetworkTrainerType.GANetworkTrainer);
-
-        mean = calcMean(ESErrors);
-        SD = calcStandardDeviation(mean, ESErrors);
-        printStats(mean, SD, NetworkTrainerType.ESNetworkTrainer);
-
-        mean = calcMean(DEErrors);
-        SD = calcStandardDeviation(mean, DEErrors);
-        printStats(mean, SD, NetworkTrainerType.DENetworkTrainer);
-
-        mean = calcMean(BPErrors);
-        SD = calcStandardDeviation(mean, BPErrors);
-        printStats(mean, SD, NetworkTrainerType.BPNetworkTrainer);
+        // Output may be going to a buffered file
+        System.out.flush();
     }
 
-    private static List<Double> computeFold(Dataset trainSet, Dataset testSet, INeuralNetwork network, INetworkTrainer trainer) {
-        trainer.train(network, trainSet);
-        return getApproximationErrors(testSet, network);
-    }
-
-    // Iterates through testing set and calculates the approximated values and the error of the samples of the supplied network
-    private static List<Double> getApproximationErrors(List<Sample> testSet, INeuralNetwork network) {
-        List<Double> totalError = new ArrayList<>(testSet.size());
-        // Get the network's approximation
-        // Add the error for each sample to the total error
-        testSet.parallelStream()
-                .forEach(sample -> {
-                    double[] networkOutput = network.execute(sample.inputs);
-                    totalError.add(IntStream
-                            .range(0, networkOutput.length)
-                            .mapToDouble(j -> Math.abs(networkOutput[j] - sample.outputs[j]))
-                            .sum());
-                });
-        return totalError;
-    }
-
-
     // Calculates the mean of all the samples errors
-    private static double calcMean(List<Double> totalError) {
-        return totalError
-                .stream()
-                .reduce(0.0, Double::sum) / totalError.size();
+    private static double calcMean(double[] totalError) {
+        return Arrays.stream(totalError).sum() / totalError.length;
     }
 
     // Calculates the standard deviation of the provided errors
-    private static double calcStandardDeviation(double average, List<Double> totalError) {
-        return Math.sqrt(totalError
-                .stream()
-                .mapToDouble(aDouble -> Math.pow((aDouble - average), 2) / totalError.size())
+    private static double calcStandardDeviation(double average, double[] totalError) {
+        return Math.sqrt(Arrays.stream(totalError)
+                .map(error -> Math.pow((error - average), 2) / totalError.length)
                 .sum());
     }
 
@@ -141,23 +85,19 @@ public class Tester {
         }
     }
 
+    // Called from the cross validation workers as each run completes, the console stream writes each line whole
     private static void logStep(int k, NetworkTrainerType trainerType) {
-        setConsoleOut();
-        System.out.println("k: " + k + ",\t" + trainerType.toString() + " complete.");
-        setFileOut();
+        console.println("k: " + k + ",\t" + trainerType.toString() + " complete.");
     }
 
+    // Send everything printed from here on to <dataset>.txt, called once before any training starts
     private static void setFileOut() {
         try {
-            System.setOut(new PrintStream(new BufferedOutputStream(new FileOutputStream(datasetType.name().concat(".txt"), true)), true));
+            System.setOut(new PrintStream(new BufferedOutputStream(new FileOutputStream(datasetType.name().concat(".txt"), true))));
         } catch (FileNotFoundException e) {
             e.printStackTrace();
         }
     }
-
-    private static void setConsoleOut() {
-        System.setOut(new PrintStream(new FileOutputStream(FileDescriptor.out)));
-    }
 }
 
 
@@ -0,0 +1,22 @@
+import java.time.Duration;
+
+/**
+ * Stop once the run has trained for longer than its wall clock budget. Time spent before a checkpoint counts toward
+ * the budget of the resumed run.
+ */
+public class TimeBudgetStoppingPolicy implements IStoppingPolicy {
+
+    private final long budgetNanos;
+
+    public TimeBudgetStoppingPolicy(Duration budget) {
+        if (budget.isNegative() || budget.isZero()) {
+            throw new IllegalArgumentException("The time budget must be positive!");
+        }
+        this.budgetNanos = budget.toNanos();
+    }
+
+    @Override
+    public boolean shouldStop(TrainingProgress progress) {
+        return progress.getElapsedNanos() >= budgetNanos;
+    }
+}
@@ -0,0 +1,435 @@
+/**
+ * Tuning parameters of a network and the trainers that train it.
+ * NetworkFactory.buildConfig returns a config holding the defaults listed in NetworkFactory, which can then be changed
+ * parameter by parameter, for example by a hyperparameter search, and passed back to the factory's build methods.
+ * Every config is independent of the others, copy one before changing it when the original is still needed.
+ */
+public class TrainerConfig {
+
+    /* MultiLayer Perceptron Parameters */
+    private int[] layers;
+    private ActivationFunctionType activationType;
+
+    /* Backpropagation Parameters */
+    private int batchSize;
+    private double learningRate;
+    private double momentum;
+    private int workers;
+
+    /* Evolution Strategy Parameters */
+    private int populationSizeES;
+    private int numberOffspringES;
+    private int numberParentsES;
+    private double mutationRateES;
+
+    /* Differential Evolution Parameters */
+    private int populationSizeDE;
+    private double beta;
+    private double crossoverRate;
+
+    /* Genetic Algorithm Parameters */
+    private int populationSizeGA;
+    private double mutationRateGA;
+    private int numberParentsGA;
+    private int numberOffspringGA;
+
+    /* Island Model Parameters (ES, DE and GA) */
+    private int islands;
+    private int migrationInterval;
+    private int migrants;
+    private MigrationTopology topology;
+
+    /* Fitness Evaluation Parameters (ES, DE and GA) */
+    private int fitnessCacheSize;
+    private int subsampleSize;
+    private int eliteInterval;
+    private int eliteCount;
+    private boolean racing;
+
+    /* Checkpoint Parameters (ES, DE and GA) */
+    private int checkpointInterval;
+
+    /* Stopping Parameters (ES, DE and GA) */
+    private int maxGenerations;
+    private int patience;
+    private int improvementWindow;
+    private double minImprovement;
+
+    /* Stopping Parameters (Backpropagation) */
+    private int maxEpochs;
+    private int epochPatience;
+    private int epochWindow;
+    private double epochMinImprovement;
+
+    /* Stopping Parameters (all trainers) */
+    private double timeBudgetSeconds;
+    private long evaluationBudget;
+    private double targetError;
+
+    TrainerConfig() {
+    }
+
+    public TrainerConfig copy() {
+        TrainerConfig copy = new TrainerConfig();
+        copy.layers = layers.clone();
+        copy.activationType = activationType;
+        copy.batchSize = batchSize;
+        copy.learningRate = learningRate;
+        copy.momentum = momentum;
+        copy.workers = workers;
+        copy.populationSizeES = populationSizeES;
+        copy.numberOffspringES = numberOffspringES;
+        copy.numberParentsES = numberParentsES;
+        copy.mutationRateES = mutationRateES;
+        copy.populationSizeDE = populationSizeDE;
+        copy.beta = beta;
+        copy.crossoverRate = crossoverRate;
+        copy.populationSizeGA = populationSizeGA;
+        copy.mutationRateGA = mutationRateGA;
+        copy.numberParentsGA = numberParentsGA;
+        copy.numberOffspringGA = numberOffspringGA;
+        copy.islands = islands;
+        copy.migrationInterval = migrationInterval;
+        copy.migrants = migrants;
+        copy.topology = topology;
+        copy.fitnessCacheSize = fitnessCacheSize;
+        copy.subsampleSize = subsampleSize;
+        copy.eliteInterval = eliteInterval;
+        copy.eliteCount = eliteCount;
+        copy.racing = racing;
+        copy.checkpointInterval = checkpointInterval;
+        copy.maxGenerations = maxGenerations;
+        copy.patience = patience;
+        copy.improvementWindow = improvementWindow;
+        copy.minImprovement = minImprovement;
+        copy.maxEpochs = maxEpochs;
+        copy.epochPatience = epochPatience;
+        copy.epochWindow = epochWindow;
+        copy.epochMinImprovement = epochMinImprovement;
+        copy.timeBudgetSeconds = timeBudgetSeconds;
+        copy.evaluationBudget = evaluationBudget;
+        copy.targetError = targetError;
+        return copy;
+    }
+
+    public int[] getLayers() {
+        return layers.clone();
+    }
+
+    /**
+     * Size of each layer, the first is the number of inputs and the last the number of outputs
+     */
+    public void setLayers(int... layers) {
+        if (layers.length < 2) {
+            throw new IllegalArgumentException("A network needs at least an input and an output layer!");
+        }
+        this.layers = layers.clone();
+    }
+
+    /**
+     * Replace the size of every hidden layer, keeping the input and output layers
+     */
+    public void setHiddenLayers(int... hidden) {
+        int[] sizes = new int[hidden.length + 2];
+        sizes[0] = layers[0];
+        System.arraycopy(hidden, 0, sizes, 1, hidden.length);
+        sizes[sizes.length - 1] = layers[layers.length - 1];
+        this.layers = sizes;
+    }
+
+    public ActivationFunctionType getActivationType() {
+        return activationType;
+    }
+
+    public void setActivationType(ActivationFunctionType activationType) {
+        this.activationType = activationType;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public double getLearningRate() {
+        return learningRate;
+    }
+
+    public void setLearningRate(double learningRate) {
+        this.learningRate = learningRate;
+    }
+
+    public double getMomentum() {
+        return momentum;
+    }
+
+    public void setMomentum(double momentum) {
+        this.momentum = momentum;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public void setWorkers(int workers) {
+        this.workers = workers;
+    }
+
+    public int getPopulationSizeES() {
+        return populationSizeES;
+    }
+
+    public void setPopulationSizeES(int populationSizeES) {
+        this.populationSizeES = populationSizeES;
+    }
+
+    public int getNumberOffspringES() {
+        return numberOffspringES;
+    }
+
+    public void setNumberOffspringES(int numberOffspringES) {
+        this.numberOffspringES = numberOffspringES;
+    }
+
+    public int getNumberParentsES() {
+        return numberParentsES;
+    }
+
+    public void setNumberParentsES(int numberParentsES) {
+        this.numberParentsES = numberParentsES;
+    }
+
+    public double getMutationRateES() {
+        return mutationRateES;
+    }
+
+    public void setMutationRateES(double mutationRateES) {
+        this.mutationRateES = mutationRateES;
+    }
+
+    public int getPopulationSizeDE() {
+        return populationSizeDE;
+    }
+
+    public void setPopulationSizeDE(int populationSizeDE) {
+        this.populationSizeDE = populationSizeDE;
+    }
+
+    public double getBeta() {
+        return beta;
+    }
+
+    public void setBeta(double beta) {
+        this.beta = beta;
+    }
+
+    public double getCrossoverRate() {
+        return crossoverRate;
+    }
+
+    public void setCrossoverRate(double crossoverRate) {
+        this.crossoverRate = crossoverRate;
+    }
+
+    public int getPopulationSizeGA() {
+        return populationSizeGA;
+    }
+
+    public void setPopulationSizeGA(int populationSizeGA) {
+        this.populationSizeGA = populationSizeGA;
+    }
+
+    public double getMutationRateGA() {
+        return mutationRateGA;
+    }
+
+    public void setMutationRateGA(double mutationRateGA) {
+        this.mutationRateGA = mutationRateGA;
+    }
+
+    public int getNumberParentsGA() {
+        return numberParentsGA;
+    }
+
+    public void setNumberParentsGA(int numberParentsGA) {
+        this.numberParentsGA = numberParentsGA;
+    }
+
+    public int getNumberOffspringGA() {
+        return numberOffspringGA;
+    }
+
+    public void setNumberOffspringGA(int numberOffspringGA) {
+        this.numberOffspringGA = numberOffspringGA;
+    }
+
+    public int getIslands() {
+        return islands;
+    }
+
+    public void setIslands(int islands) {
+        this.islands = islands;
+    }
+
+    public int getMigrationInterval() {
+        return migrationInterval;
+    }
+
+    public void setMigrationInterval(int migrationInterval) {
+        this.migrationInterval = migrationInterval;
+    }
+
+    public int getMigrants() {
+        return migrants;
+    }
+
+    public void setMigrants(int migrants) {
+        this.migrants = migrants;
+    }
+
+    public MigrationTopology getTopology() {
+        return topology;
+    }
+
+    public void setTopology(MigrationTopology topology) {
+        this.topology = topology;
+    }
+
+    public int getFitnessCacheSize() {
+        return fitnessCacheSize;
+    }
+
+    public void setFitnessCacheSize(int fitnessCacheSize) {
+        this.fitnessCacheSize = fitnessCacheSize;
+    }
+
+    public int getSubsampleSize() {
+        return subsampleSize;
+    }
+
+    public void setSubsampleSize(int subsampleSize) {
+        this.subsampleSize = subsampleSize;
+    }
+
+    public int getEliteInterval() {
+        return eliteInterval;
+    }
+
+    public void setEliteInterval(int eliteInterval) {
+        this.eliteInterval = eliteInterval;
+    }
+
+    public int getEliteCount() {
+        return eliteCount;
+    }
+
+    public void setEliteCount(int eliteCount) {
+        this.eliteCount = eliteCount;
+    }
+
+    public boolean isRacing() {
+        return racing;
+    }
+
+    public void setRacing(boolean racing) {
+        this.racing = racing;
+    }
+
+    public int getCheckpointInterval() {
+        return checkpointInterval;
+    }
+
+    public void setCheckpointInterval(int checkpointInterval) {
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    public int getMaxGenerations() {
+        return maxGenerations;
+    }
+
+    public void setMaxGenerations(int maxGenerations) {
+        this.maxGenerations = maxGenerations;
+    }
+
+    public int getPatience() {
+        return patience;
+    }
+
+    public void setPatience(int patience) {
+        this.patience = patience;
+    }
+
+    public int getImprovementWindow() {
+        return improvementWindow;
+    }
+
+    public void setImprovementWindow(int improvementWindow) {
+        this.improvementWindow = improvementWindow;
+    }
+
+    public double getMinImprovement() {
+        return minImprovement;
+    }
+
+    public void setMinImprovement(double minImprovement) {
+        this.minImprovement = minImprovement;
+    }
+
+    public int getMaxEpochs() {
+        return maxEpochs;
+    }
+
+    public void setMaxEpochs(int maxEpochs) {
+        this.maxEpochs = maxEpochs;
+    }
+
+    public int getEpochPatience() {
+        return epochPatience;
+    }
+
+    public void setEpochPatience(int epochPatience) {
+        this.epochPatience = epochPatience;
+    }
+
+    public int getEpochWindow() {
+        return epochWindow;
+    }
+
+    public void setEpochWindow(int epochWindow) {
+        this.epochWindow = epochWindow;
+    }
+
+    public double getEpochMinImprovement() {
+        return epochMinImprovement;
+    }
+
+    public void setEpochMinImprovement(double epochMinImprovement) {
+        this.epochMinImprovement = epochMinImprovement;
+    }
+
+    public double getTimeBudgetSeconds() {
+        return timeBudgetSeconds;
+    }
+
+    public void setTimeBudgetSeconds(double timeBudgetSeconds) {
+        this.timeBudgetSeconds = timeBudgetSeconds;
+    }
+
+    public long getEvaluationBudget() {
+        return evaluationBudget;
+    }
+
+    public void setEvaluationBudget(long evaluationBudget) {
+        this.evaluationBudget = evaluationBudget;
+    }
+
+    public double getTargetError() {
+        return targetError;
+    }
+
+    public void setTargetError(double targetError) {
+        this.targetError = targetError;
+    }
+}
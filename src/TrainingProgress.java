@@ -0,0 +1,82 @@
+/**
+ * Progress of the current training run as seen by the stopping policies: the latest and best validation errors, when
+ * the best was seen, the time since the run started and the number of evaluations, or samples trained for
+ * backpropagation, spent so far.
+ */
+public final class TrainingProgress {
+
+    private int generation;
+    private double error;
+    private int bestGeneration;
+    private double bestError;
+    private long startNanos;
+    private long evaluations;
+
+    /**
+     * Begin a new run that started at the given System.nanoTime
+     */
+    void start(long startNanos) {
+        this.generation = 0;
+        this.error = Double.MAX_VALUE;
+        this.bestGeneration = 0;
+        this.bestError = Double.MAX_VALUE;
+        this.startNanos = startNanos;
+        this.evaluations = 0;
+    }
+
+    /**
+     * Continue a checkpointed run
+     */
+    void restore(int bestGeneration, double bestError, long startNanos, long evaluations) {
+        this.bestGeneration = bestGeneration;
+        this.bestError = bestError;
+        this.startNanos = startNanos;
+        this.evaluations = evaluations;
+    }
+
+    /**
+     * Record the validation error of a generation, returning true when it is the best of the run
+     */
+    boolean update(int generation, double error) {
+        this.generation = generation;
+        this.error = error;
+        if (error < bestError) {
+            bestGeneration = generation;
+            bestError = error;
+            return true;
+        }
+        return false;
+    }
+
+    void addEvaluations(long count) {
+        evaluations += count;
+    }
+
+    public int getGeneration() {
+        return generation;
+    }
+
+    public double getError() {
+        return error;
+    }
+
+    public int getBestGeneration() {
+        return bestGeneration;
+    }
+
+    public double getBestError() {
+        return bestError;
+    }
+
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    public long getElapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    public long getEvaluations() {
+        return evaluations;
+    }
+}
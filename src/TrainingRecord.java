@@ -0,0 +1,74 @@
+/**
+ * Metrics of one generation of an evolutionary trainer, or one epoch of backpropagation.
+ * Records live in the slots of a Telemetry ring buffer and are overwritten once written, sinks that keep records must
+ * take a copy. Times and evaluation counts cover the work done since the previous record of the same trainer. For
+ * backpropagation an evaluation is one sample propagated forwards and backwards and there is no reproduction step.
+ */
+public final class TrainingRecord {
+
+    private String trainer;
+    private int run;
+    private int generation;
+    private double bestError;
+    private double meanError;
+    private long evaluationNanos;
+    private long reproductionNanos;
+    private long evaluations;
+    private double evaluationsPerSecond;
+
+    void set(String trainer, int run, int generation, double bestError, double meanError, long evaluationNanos,
+             long reproductionNanos, long evaluations, double evaluationsPerSecond) {
+        this.trainer = trainer;
+        this.run = run;
+        this.generation = generation;
+        this.bestError = bestError;
+        this.meanError = meanError;
+        this.evaluationNanos = evaluationNanos;
+        this.reproductionNanos = reproductionNanos;
+        this.evaluations = evaluations;
+        this.evaluationsPerSecond = evaluationsPerSecond;
+    }
+
+    public TrainingRecord copy() {
+        TrainingRecord copy = new TrainingRecord();
+        copy.set(trainer, run, generation, bestError, meanError, evaluationNanos, reproductionNanos, evaluations,
+                evaluationsPerSecond);
+        return copy;
+    }
+
+    public String getTrainer() {
+        return trainer;
+    }
+
+    public int getRun() {
+        return run;
+    }
+
+    public int getGeneration() {
+        return generation;
+    }
+
+    public double getBestError() {
+        return bestError;
+    }
+
+    public double getMeanError() {
+        return meanError;
+    }
+
+    public long getEvaluationNanos() {
+        return evaluationNanos;
+    }
+
+    public long getReproductionNanos() {
+        return reproductionNanos;
+    }
+
+    public long getEvaluations() {
+        return evaluations;
+    }
+
+    public double getEvaluationsPerSecond() {
+        return evaluationsPerSecond;
+    }
+}
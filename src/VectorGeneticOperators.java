@@ -0,0 +1,50 @@
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Genetic operators whose arithmetic runs on the JDK Vector API, processing as many genes per instruction as the
+ * preferred vector shape of the platform allows. Crossover blends whole vectors of parent genes under masks built from
+ * the random draws, and the differential update is computed for every lane before the crossover mask picks the result.
+ * The operations and their order match ScalarGeneticOperators, so the offspring are bit for bit identical.
+ * Requires the jdk.incubator.vector module, GeneticOperatorFactory falls back to the scalar operators without it.
+ */
+final class VectorGeneticOperators extends ScalarGeneticOperators {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    @Override
+    void selectGenes(double[][] parents, double[] choices, double[] child) {
+        int upperBound = SPECIES.loopBound(child.length);
+        int i = 0;
+        for (; i < upperBound; i += SPECIES.length()) {
+            DoubleVector choice = DoubleVector.fromArray(SPECIES, choices, i);
+            DoubleVector genes = DoubleVector.fromArray(SPECIES, parents[0], i);
+            for (int p = 1; p < parents.length; p++) {
+                VectorMask<Double> chosen = choice.compare(VectorOperators.EQ, p);
+                genes = genes.blend(DoubleVector.fromArray(SPECIES, parents[p], i), chosen);
+            }
+            genes.intoArray(child, i);
+        }
+        for (; i < child.length; i++) {
+            child[i] = parents[(int) choices[i]][i];
+        }
+    }
+
+    @Override
+    void combine(double[] a, double[] b, double[] c, double beta, double crossoverRate, double[] uniforms, double[] child) {
+        int upperBound = SPECIES.loopBound(child.length);
+        int i = 0;
+        for (; i < upperBound; i += SPECIES.length()) {
+            DoubleVector va = DoubleVector.fromArray(SPECIES, a, i);
+            DoubleVector vb = DoubleVector.fromArray(SPECIES, b, i);
+            DoubleVector vc = DoubleVector.fromArray(SPECIES, c, i);
+            VectorMask<Double> crossed = DoubleVector.fromArray(SPECIES, uniforms, i).compare(VectorOperators.LT, crossoverRate);
+            va.blend(va.add(vb.sub(vc).mul(beta)), crossed).intoArray(child, i);
+        }
+        for (; i < child.length; i++) {
+            child[i] = uniforms[i] < crossoverRate ? a[i] + beta * (b[i] - c[i]) : a[i];
+        }
+    }
+}
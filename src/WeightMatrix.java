@@ -1,117 +1,145 @@
 import org.jetbrains.annotations.NotNull;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
-
 /**
- * The WeightMatrix class provides a serialized representation of an INeuralNetwork, at initialization the dimensions
- * and weights of the network provided are extracted and recorded, where the weights are a 1D list, trainers may then use
- * this representation to perform various opperation such as mutation and crossover between different WeightMatrices
+ * The WeightMatrix class is the genome used by the evolutionary trainers. Every weight and bias of a network is stored
+ * in a single primitive array using the layout of FlatMultiLayerPerceptron, one [w0 .. wn-1, bias] row per neuron with
+ * the layers back to back, optionally followed by one mutation step size (sigma) per parameter. Layer offsets are
+ * computed once and shared by every individual derived from the same network, so crossover, mutation and evaluation
+ * are plain loops over the gene array and a network can execute directly on it without copying.
  */
 public class WeightMatrix implements Comparable {
 
     private static final double sigmaIncreaseFactor = 1.1;
     private static final double sigmaDecreaseFactor = 0.9;
 
-    private List<Double> weights;
-    private List<Double> sigmas;
-    private List<Integer> dimensions;
+    private final INeuralNetwork network;
+    private final int[] dimensions;
+    private final int[] layerOffsets;
+    private final int parameterCount;
 
-    private double fitness;
-    private INeuralNetwork network;
+    // Weights and biases in network order, followed by the sigmas when the genome has them
+    private final double[] genes;
 
-    private final int networkSize;
-    private final int numInputs;
+    private double fitness;
+    private boolean fitnessValid;
+    // Whether the fitness was estimated on a subsample of the training set rather than scored on all of it
+    private boolean fitnessEstimated;
+    // Error on the trainer's validation set, NaN until measured. The weights of an individual never change once it
+    // has been created, so the error holds for as long as the individual survives.
+    private double validationError = Double.NaN;
 
     /**
-     * Build a new weight matrix using the dimensions and weights of the provided network
+     * Build a new genome holding the weights and biases of the provided network
      */
     public WeightMatrix(INeuralNetwork network) {
+        this(network, false);
+    }
+
+    /**
+     * Build a new genome holding the weights and biases of the provided network, with zeroed sigmas if requested
+     */
+    public WeightMatrix(INeuralNetwork network, boolean withSigmas) {
         this.network = network;
-        this.networkSize = network.getSize();
-        this.numInputs = network.getLayer(0).getNeuron(0).size;
-        this.weights = new ArrayList<>();
-        this.sigmas = new ArrayList<>();
-        this.dimensions = new ArrayList<>();
-
-        for (int i = 0; i < networkSize; i++) {
-            Layer layer = network.getLayer(i);
-            this.dimensions.add(layer.size);
-            this.weights.addAll(layer
-                    .getNeurons()
-                    .stream()
-                    .map(Neuron::getWeights)
-                    .flatMap(Collection::stream)
-                    .collect(Collectors.toList()));
+        this.dimensions = FlatMultiLayerPerceptron.getDimensions(network);
+        this.layerOffsets = FlatMultiLayerPerceptron.computeLayerOffsets(dimensions);
+        this.parameterCount = layerOffsets[layerOffsets.length - 1];
+        this.genes = new double[withSigmas ? 2 * parameterCount : parameterCount];
+        FlatMultiLayerPerceptron.packParameters(network, genes);
+    }
+
+    // Share the layout of an existing genome over a new gene array
+    private WeightMatrix(WeightMatrix layout, double[] genes) {
+        this.network = layout.network;
+        this.dimensions = layout.dimensions;
+        this.layerOffsets = layout.layerOffsets;
+        this.parameterCount = layout.parameterCount;
+        this.genes = genes;
+    }
+
+    /**
+     * Create an independent copy of this individual, including its sigmas and fitness
+     */
+    public WeightMatrix copy() {
+        WeightMatrix copy = new WeightMatrix(this, genes.clone());
+        copy.fitness = this.fitness;
+        copy.fitnessValid = this.fitnessValid;
+        copy.fitnessEstimated = this.fitnessEstimated;
+        copy.validationError = this.validationError;
+        return copy;
+    }
+
+    /**
+     * Overwrite this individual's genes and fitness with those of another of the same layout, without allocating
+     */
+    public void copyFrom(WeightMatrix source) {
+        if (source.genes.length != genes.length) {
+            throw new IllegalArgumentException("Expected " + genes.length + " genes but got " + source.genes.length);
         }
+        System.arraycopy(source.genes, 0, genes, 0, genes.length);
+        this.fitness = source.fitness;
+        this.fitnessValid = source.fitnessValid;
+        this.fitnessEstimated = source.fitnessEstimated;
+        this.validationError = source.validationError;
     }
 
     /**
-     * Build a new weight matrix using the dimensions of the provided network while using a separate set of weights
+     * Create an individual with the same layout as this one whose genes are all zero, ready to be filled by crossover
      */
-    public WeightMatrix(INeuralNetwork network, List<Double> weights) {
-        this.network = network;
-        this.networkSize = network.getSize();
-        this.numInputs = network.getLayer(0).getNeuron(0).size;
-        this.weights = new ArrayList<>(weights);
-        this.dimensions = new ArrayList<>();
+    public WeightMatrix newOffspring() {
+        return new WeightMatrix(this, new double[genes.length]);
+    }
 
-        for (int i = 0; i < networkSize; i++) {
-            this.dimensions.add(network.getLayer(i).size);
+    /**
+     * Create an individual with the same layout as this one over the supplied genes, such as genes read back from a
+     * checkpoint. The array is used directly and must be the same length as this individual's genes.
+     */
+    WeightMatrix withGenes(double[] genes) {
+        if (genes.length != this.genes.length) {
+            throw new IllegalArgumentException("Expected " + this.genes.length + " genes but got " + genes.length);
         }
+        return new WeightMatrix(this, genes);
     }
 
     /**
-     * Construct an INeuralNetwork from the dimensions and weights stored in the class
+     * Write the weights and biases of this genome into the network it was created from and return that network
      */
     public INeuralNetwork buildNetwork() {
-        for (int i = 0; i < networkSize; i++) {
-            List<Neuron> currentLayer = network.getLayer(i).getNeurons();
-            for (int j = 0; j < currentLayer.size(); j++) {
-                List<Double> currentWeights = this.getModifiedWeights(i, j);
-                currentLayer.get(j).setWeights(currentWeights);
-            }
-        }
+        FlatMultiLayerPerceptron.unpackParameters(network, genes);
+        return this.network;
+    }
 
+    public INeuralNetwork getNetwork() {
         return this.network;
     }
 
     /**
-     * Retrieve the list of weights corresponding to a particular neuron in a particular layer
+     * The live gene array, parameters first then sigmas. Callers that modify it after the individual has been scored
+     * must invalidate its fitness.
      */
-    private List<Double> getModifiedWeights(int layer, int neuron) {
-        int startIndex, endIndex;
-
-        // Accumulate layer index offset
-        startIndex = IntStream
-                .range(0, layer)
-                .parallel()
-                .map(i -> i == 0 ? numInputs * dimensions.get(0) : dimensions.get(i - 1) * dimensions.get(i))
-                .sum();
-
-        // Accumulate neuron index offset, set end index
-        if (layer == 0) {
-            startIndex += neuron * numInputs;
-            endIndex = startIndex + numInputs;
-        } else {
-            startIndex += neuron * this.dimensions.get(layer - 1);
-            endIndex = startIndex + this.dimensions.get(layer - 1);
-        }
+    public double[] getGenes() {
+        return this.genes;
+    }
 
-        return new ArrayList<>(this.weights.subList(startIndex, endIndex));
+    /**
+     * Number of weights and biases, which is also the index of the first sigma
+     */
+    public int getParameterCount() {
+        return this.parameterCount;
     }
 
-    public List<Double> getWeights() {
-        return this.weights;
+    public boolean hasSigmas() {
+        return this.genes.length > this.parameterCount;
     }
 
-    public void setWeights(List<Double> weights) {
-        assert weights.size() == this.weights.size() : "Invalid weight matrix";
+    /**
+     * Index of the weight connecting the given input to a neuron, the neuron's bias follows its last weight
+     */
+    public int getNeuronOffset(int layer, int neuron) {
+        return layerOffsets[layer] + neuron * (dimensions[layer] + 1);
+    }
 
-        this.weights = weights;
+    public int[] getLayerOffsets() {
+        return this.layerOffsets;
     }
 
     public double getFitness() {
@@ -120,24 +148,52 @@ public class WeightMatrix implements Comparable {
 
     public void setFitness(double fitness) {
         this.fitness = fitness;
+        this.fitnessValid = true;
+        this.fitnessEstimated = false;
     }
 
     /**
-     * Modify each sigma according the the 1/5th rule, most fit individuals have their sigma decreased, while other
-     * are increased according to the constant factors set above
+     * Set a fitness estimated on a subsample of the training set, which only holds for the generation it was scored in
      */
-    public void adjustSigma(boolean increase) {
-        IntStream.range(0, this.sigmas.size())
-                .parallel()
-                .forEach(i -> this.sigmas.set(i, this.sigmas.get(i) * (increase ? sigmaIncreaseFactor : sigmaDecreaseFactor)));
+    public void setEstimatedFitness(double fitness) {
+        this.fitness = fitness;
+        this.fitnessValid = true;
+        this.fitnessEstimated = true;
+    }
+
+    /**
+     * Whether the fitness was computed for the current genes, new individuals start without a valid fitness
+     */
+    public boolean isFitnessValid() {
+        return this.fitnessValid;
     }
 
-    public List<Double> getSigmas() {
-        return sigmas;
+    public double getValidationError() {
+        return validationError;
     }
 
-    public void setSigmas(List<Double> sigmas) {
-        this.sigmas = sigmas;
+    public void setValidationError(double validationError) {
+        this.validationError = validationError;
+    }
+
+    public boolean isFitnessEstimated() {
+        return this.fitnessEstimated;
+    }
+
+    public void invalidateFitness() {
+        this.fitnessValid = false;
+        this.fitnessEstimated = false;
+    }
+
+    /**
+     * Modify each sigma according the the 1/5th rule, most fit individuals have their sigma decreased, while other
+     * are increased according to the constant factors set above
+     */
+    public void adjustSigma(boolean increase) {
+        double factor = increase ? sigmaIncreaseFactor : sigmaDecreaseFactor;
+        for (int i = parameterCount; i < genes.length; i++) {
+            genes[i] *= factor;
+        }
     }
 
     @Override